@@ -0,0 +1,98 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.BaseEntity;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.Status;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Builds the in-memory entities the benchmarks convert,
+ * shaped like the rows of the task list page: a task with its project,
+ * the project manager and the assigned employee, each user with a role.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Role role(long id, String description) {
+        Role role = new Role(description);
+        audit(role, id);
+        return role;
+    }
+
+    static User user(long id, String userName, Role role) {
+        User user = new User();
+        audit(user, id);
+        user.setFirstName("Mike");
+        user.setLastName("Smith");
+        user.setUserName(userName);
+        user.setPassWord("$2a$10$nAB5j9G1c3JHgg7qzhiIXO7cqqr5oJ3LXRNQJKssDUwHXzDGUztNK");
+        user.setEnabled(true);
+        user.setPhone("5552223344");
+        user.setGender(Gender.MALE);
+        user.setRole(role);
+        return user;
+    }
+
+    static Project project(long id, User manager) {
+        Project project = new Project();
+        audit(project, id);
+        project.setProjectCode("PR" + id);
+        project.setProjectName("Project " + id);
+        project.setAssignedManager(manager);
+        project.setStartDate(LocalDate.of(2022, 1, 1));
+        project.setEndDate(LocalDate.of(2022, 12, 31));
+        project.setProjectDetail("Benchmark project");
+        project.setProjectStatus(Status.OPEN);
+        return project;
+    }
+
+    static Task task(long id, Project project, User employee) {
+        Task task = new Task();
+        audit(task, id);
+        task.setTaskSubject("Subject " + id);
+        task.setTaskDetail("Detail of task " + id);
+        task.setTaskStatus(Status.IN_PROGRESS);
+        task.setAssignedDate(LocalDate.of(2022, 3, 1));
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        return task;
+    }
+
+    static Task sampleTask() {
+        User manager = user(2L, "manager@cydeo.com", role(2L, "Manager"));
+        User employee = user(3L, "employee@cydeo.com", role(3L, "Employee"));
+        return task(10L, project(5L, manager), employee);
+    }
+
+    /**
+     * In-memory stand-in for a service interface, the given method answers from the function,
+     * every other method fails. Keeps the database out of the measured code.
+     */
+    static <T> T stub(Class<T> type, String methodName, Function<Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        return answer.apply(args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    private static void audit(BaseEntity entity, long id) {
+        entity.setId(id);
+        entity.setInsertDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
+        entity.setInsertUserId(1L);
+        entity.setLastUpdateDateTime(LocalDateTime.of(2022, 1, 1, 0, 0));
+        entity.setLastUpdateUserId(1L);
+    }
+}
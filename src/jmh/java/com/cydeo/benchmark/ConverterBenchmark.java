@@ -0,0 +1,83 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.converter.ProjectDtoConverter;
+import com.cydeo.converter.RoleDtoConverter;
+import com.cydeo.converter.UserDtoConverter;
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Task;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.mapper.UserMapperImpl;
+import com.cydeo.service.ProjectService;
+import com.cydeo.service.RoleService;
+import com.cydeo.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Form binding path of the select boxes: a submitted id/code/username string goes
+ * through the conversion service into the converters, which ask the services for the DTO.
+ * The services are in-memory stubs answering with freshly mapped DTOs,
+ * so the score is the binding and mapping cost without the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private DefaultConversionService conversionService;
+
+    @Setup
+    public void setUp() {
+        Task task = BenchmarkData.sampleTask();
+        RoleMapper roleMapper = new RoleMapperImpl();
+        UserMapper userMapper = new UserMapperImpl(roleMapper);
+        ProjectMapper projectMapper = new ProjectMapperImpl(userMapper);
+
+        RoleService roleService = BenchmarkData.stub(RoleService.class, "findById",
+                args -> roleMapper.convertToDTO(task.getAssignedEmployee().getRole()));
+        UserService userService = BenchmarkData.stub(UserService.class, "findByUserName",
+                args -> userMapper.convertToDto(task.getAssignedEmployee()));
+        ProjectService projectService = BenchmarkData.stub(ProjectService.class, "getByProjectCode",
+                args -> projectMapper.convertToDTO(task.getProject()));
+
+        conversionService = new DefaultConversionService();
+        conversionService.addConverter(new RoleDtoConverter(roleService));
+        conversionService.addConverter(new UserDtoConverter(userService));
+        conversionService.addConverter(new ProjectDtoConverter(projectService));
+    }
+
+    @Benchmark
+    public RoleDTO roleDtoConverter() {
+        return conversionService.convert("3", RoleDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userDtoConverter() {
+        return conversionService.convert("employee@cydeo.com", UserDTO.class);
+    }
+
+    @Benchmark
+    public ProjectDTO projectDtoConverter() {
+        return conversionService.convert("PR5", ProjectDTO.class);
+    }
+}
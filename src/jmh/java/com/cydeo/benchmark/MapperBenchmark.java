@@ -0,0 +1,100 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Task;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.mapper.UserMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions per second of the generated MapStruct mappers
+ * compared with the reflective ModelMapper they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private TaskMapper taskMapper;
+    private ProjectMapper projectMapper;
+    private UserMapper userMapper;
+
+    private Task task;
+    private TaskDTO taskDTO;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        RoleMapper roleMapper = new RoleMapperImpl();
+        userMapper = new UserMapperImpl(roleMapper);
+        projectMapper = new ProjectMapperImpl(userMapper);
+        taskMapper = new TaskMapperImpl(projectMapper, userMapper);
+
+        task = BenchmarkData.sampleTask();
+        taskDTO = taskMapper.convertToDTO(task);
+    }
+
+    @Benchmark
+    public TaskDTO taskToDtoModelMapper() {
+        return modelMapper.map(task, TaskDTO.class);
+    }
+
+    @Benchmark
+    public TaskDTO taskToDtoGenerated() {
+        return taskMapper.convertToDTO(task);
+    }
+
+    @Benchmark
+    public Task taskToEntityModelMapper() {
+        return modelMapper.map(taskDTO, Task.class);
+    }
+
+    @Benchmark
+    public Task taskToEntityGenerated() {
+        return taskMapper.convertToEntity(taskDTO);
+    }
+
+    @Benchmark
+    public ProjectDTO projectToDtoModelMapper() {
+        return modelMapper.map(task.getProject(), ProjectDTO.class);
+    }
+
+    @Benchmark
+    public ProjectDTO projectToDtoGenerated() {
+        return projectMapper.convertToDTO(task.getProject());
+    }
+
+    @Benchmark
+    public UserDTO userToDtoModelMapper() {
+        return modelMapper.map(task.getAssignedEmployee(), UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userToDtoGenerated() {
+        return userMapper.convertToDto(task.getAssignedEmployee());
+    }
+}
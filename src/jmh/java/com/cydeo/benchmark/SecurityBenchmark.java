@@ -0,0 +1,49 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.entity.common.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authority lookups done on every secured request: the principal builds its
+ * authority list and the success handler turns it into a set of role names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private UserPrincipal principal;
+
+    @Setup
+    public void setUp() {
+        principal = new UserPrincipal(BenchmarkData.sampleTask().getAssignedEmployee());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> principalAuthorities() {
+        return principal.getAuthorities();
+    }
+
+    @Benchmark
+    public Set<String> authoritySet() {
+        return AuthorityUtils.authorityListToSet(principal.getAuthorities());
+    }
+}
@@ -0,0 +1,35 @@
+package com.cydeo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * In-memory caches of the application, every cache is bounded and expires its entries.
+ * The size and expiry of a cache come from the application.properties as a Caffeine spec,
+ * recordStats in the spec publishes its hit/miss counters to the actuator metrics.
+ * The caching advice runs outside the transaction advice (lower order),
+ * so an eviction happens after the transaction of the evicting method is committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String PRINCIPALS = "principals";
+    //the role drop down of the user forms
+    public static final String ROLES = "roles";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.principals.spec}") String principalSpec,
+                                     @Value("${cache.roles.spec}") String roleSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRINCIPALS, Caffeine.from(principalSpec).build());
+        cacheManager.registerCustomCache(ROLES, Caffeine.from(roleSpec).build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,29 @@
+package com.cydeo.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the time spent in the mappers, the MapStruct mappers and the MapperUtil,
+ * to the RequestTiming of a sampled request.
+ */
+@Aspect
+@Component
+public class MapperTimingAspect {
+
+    @Around("within(com.cydeo.mapper..*)")
+    public Object timeMapping(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return joinPoint.proceed();
+        }
+        timing.mappingStarted();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.mappingEnded();
+        }
+    }
+}
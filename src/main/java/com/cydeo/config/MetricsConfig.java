@@ -0,0 +1,24 @@
+package com.cydeo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times the services annotated with @Timed(MetricsConfig.SERVICE_TIMER).
+ * Every public method gets a timer with the class, the method and the exception as tags,
+ * its count is the number of calls, so a slow page can be traced to the service method that makes it slow.
+ * The timers, the http request histograms, the hikari pool and the hibernate statistics
+ * are published on /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "service.method";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
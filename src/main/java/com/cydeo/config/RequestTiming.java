@@ -0,0 +1,97 @@
+package com.cydeo.config;
+
+import java.util.Locale;
+
+/**
+ * The time a sampled request spends in the database, in the mappers and in rendering the view.
+ * The ServerTimingFilter starts it on the request thread, the SqlTimingListener, the MapperTimingAspect
+ * and the render interceptor of the ServerTimingConfig add to it, and the filter writes it out at the end.
+ * A request that is not sampled has no RequestTiming, the measuring code then does nothing.
+ */
+public class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private int sqlCount;
+    private long sqlNanos;
+    private long mappingNanos;
+    private int mappingDepth;//a mapper calls other mappers, only the outermost call is timed
+    private long mappingStartNanos;
+    private long renderStartNanos;
+    private long renderNanos;
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    //null when the request is not sampled
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public void addSql(long nanos) {
+        sqlCount++;
+        sqlNanos += nanos;
+    }
+
+    public void mappingStarted() {
+        if (mappingDepth++ == 0) {
+            mappingStartNanos = System.nanoTime();
+        }
+    }
+
+    public void mappingEnded() {
+        if (--mappingDepth == 0) {
+            mappingNanos += System.nanoTime() - mappingStartNanos;
+        }
+    }
+
+    public void renderStarted() {
+        renderStartNanos = System.nanoTime();
+    }
+
+    public void renderEnded() {
+        if (renderStartNanos != 0) {
+            renderNanos += System.nanoTime() - renderStartNanos;
+            renderStartNanos = 0;
+        }
+    }
+
+    public int getSqlCount() {
+        return sqlCount;
+    }
+
+    public double getSqlMillis() {
+        return toMillis(sqlNanos);
+    }
+
+    public double getMappingMillis() {
+        return toMillis(mappingNanos);
+    }
+
+    public double getRenderMillis() {
+        return toMillis(renderNanos);
+    }
+
+    public double getTotalMillis() {
+        return toMillis(System.nanoTime() - startNanos);
+    }
+
+    //the Server-Timing header, the browser shows it in the timing tab of the request
+    public String toHeader() {
+        return String.format(Locale.ROOT,
+                "db;desc=\"%d statements\";dur=%.1f, map;dur=%.1f, render;dur=%.1f, total;dur=%.1f",
+                getSqlCount(), getSqlMillis(), getMappingMillis(), getRenderMillis(), getTotalMillis());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
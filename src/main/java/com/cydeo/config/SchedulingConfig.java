@@ -0,0 +1,13 @@
+package com.cydeo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the @Scheduled methods, such as the nightly reconciliation of the project task counters.
+ * The schedules come from the application.properties.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
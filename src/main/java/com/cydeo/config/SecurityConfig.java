@@ -1,8 +1,10 @@
 package com.cydeo.config;
 
 import com.cydeo.service.SecurityService;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
@@ -36,6 +38,51 @@ public class SecurityConfig {
 //        return new InMemoryUserDetailsManager(userDetailsList);//b/c validates with in memory not from db
 //    }
 
+    /**
+     * The actuator endpoints, such as the prometheus scrape endpoint, are read by tools that cannot fill
+     * the login form, they send the username and password of an Admin with http basic authentication.
+     * A logged-in Admin can still open them in the browser.
+     * This chain is checked before the chain of the pages.
+     *
+     * @param httpSecurity HttpSecurity
+     * @return the security filter chain of the actuator endpoints
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity httpSecurity) throws Exception {
+        return httpSecurity
+                .requestMatcher(EndpointRequest.toAnyEndpoint())
+                .authorizeRequests()
+                .anyRequest().hasAuthority("Admin")//metrics, such as the cache hit/miss counters
+                .and()
+                .httpBasic()
+                .and().build();
+    }
+
+    /**
+     * The json api (see ApiController) is read by dashboards and integrations, not by a browser,
+     * they send the username and password with http basic authentication instead of the login form.
+     * An Employee reads the own tasks, a Manager the own projects. A client keeping the session cookie
+     * is not checked against the password again on every poll.
+     * This chain is checked after the actuator chain and before the chain of the pages.
+     *
+     * @param httpSecurity HttpSecurity
+     * @return the security filter chain of the json api
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain apiFilterChain(HttpSecurity httpSecurity) throws Exception {
+        return httpSecurity
+                .requestMatcher(new AntPathRequestMatcher("/api/**"))
+                .authorizeRequests()
+                .antMatchers("/api/v1/tasks/**").hasAuthority("Employee")
+                .antMatchers("/api/v1/projects/**").hasAuthority("Manager")
+                .anyRequest().denyAll()
+                .and()
+                .httpBasic()
+                .and().build();
+    }
+
     /**
      * This method modifies the security by specifying what types of roles can
      * access what type of pages. This method gets the credential roles from the database
@@ -56,7 +103,10 @@ public class SecurityConfig {
                 .authorizeRequests()
 //                .antMatchers("/user/**").hasRole("Admin")
                 .antMatchers("/user/**").hasAuthority("Admin")
+                .antMatchers("/import/**").hasAuthority("Admin")
+                .antMatchers("/export/**").hasAnyAuthority("Admin", "Manager")
                 .antMatchers("/project/**").hasAuthority("Manager")
+                .antMatchers("/lookup/**").hasAuthority("Manager")//the typeahead of the project and task forms
                 .antMatchers("/task/employee/**").hasAuthority("Employee")
                 .antMatchers("/task/**").hasAuthority("Manager")
 //                .antMatchers("/task/**").hasAnyRole("EMPLOYEE","ADMIN")
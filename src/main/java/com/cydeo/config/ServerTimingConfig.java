@@ -0,0 +1,41 @@
+package com.cydeo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Measures the thymeleaf rendering of a sampled request:
+ * postHandle() runs when the controller returned the view, afterCompletion() when the view is rendered.
+ */
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                   ModelAndView modelAndView) {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null && modelAndView != null) {
+                    timing.renderStarted();
+                }
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) {
+                    timing.renderEnded();
+                }
+            }
+        });
+    }
+}
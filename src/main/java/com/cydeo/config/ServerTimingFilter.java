@@ -0,0 +1,74 @@
+package com.cydeo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Breaks the time of a sampled request down into the database, the mappers and the view rendering.
+ * The result is sent in the Server-Timing header, the browser shows it in the timing tab of the request,
+ * and written as one line to the server-timing log, such as
+ * method=GET uri=/project/create status=200 total_ms=52.3 sql_count=3 sql_ms=8.1 mapping_ms=0.4 render_ms=31.0
+ * Only server-timing.sample-rate of the requests are measured, the others pass through untouched.
+ * The body of a sampled request is buffered, so the header can still be set after the view is rendered,
+ * the streamed export downloads are therefore never sampled (server-timing.excluded-paths).
+ */
+@Slf4j(topic = "server-timing")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final double sampleRate;
+    private final List<String> excludedPaths;
+
+    public ServerTimingFilter(@Value("${server-timing.sample-rate}") double sampleRate,
+                              @Value("${server-timing.excluded-paths}") List<String> excludedPaths) {
+        this.sampleRate = sampleRate;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPaths.stream().anyMatch(path::startsWith)
+                || ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper bufferedResponse = new ContentCachingResponseWrapper(response);
+        RequestTiming timing = RequestTiming.start();
+        try {
+            filterChain.doFilter(request, bufferedResponse);
+        } finally {
+            RequestTiming.end();
+            response.setHeader("Server-Timing", timing.toHeader());
+            bufferedResponse.copyBodyToResponse();
+            log.info(String.format(Locale.ROOT,
+                    "method=%s uri=%s status=%d total_ms=%.1f sql_count=%d sql_ms=%.1f mapping_ms=%.1f render_ms=%.1f",
+                    request.getMethod(), uri(request), response.getStatus(), timing.getTotalMillis(),
+                    timing.getSqlCount(), timing.getSqlMillis(), timing.getMappingMillis(), timing.getRenderMillis()));
+        }
+    }
+
+    //the mapping of the controller, such as /task/update/{id}, so the lines of a page can be grouped
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
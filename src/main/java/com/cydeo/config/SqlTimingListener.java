@@ -0,0 +1,40 @@
+package com.cydeo.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts and times the jdbc statements of the sampled requests, single statements and batches.
+ * Hibernate creates one listener per session (hibernate.session.events.auto),
+ * so the start times are not shared between threads.
+ */
+public class SqlTimingListener extends BaseSessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.addSql(System.nanoTime() - statementStart);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.addSql(System.nanoTime() - batchStart);
+        }
+    }
+}
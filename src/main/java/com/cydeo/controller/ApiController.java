@@ -0,0 +1,123 @@
+package com.cydeo.controller;
+
+import com.cydeo.dto.ApiPageDTO;
+import com.cydeo.dto.ProjectSummaryDTO;
+import com.cydeo.dto.TaskSummaryDTO;
+import com.cydeo.enums.Status;
+import com.cydeo.service.ProjectService;
+import com.cydeo.service.TaskService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only json api of the pending tasks, the completed tasks and the project status,
+ * for the dashboards and the integrations that used to scrape the pages.
+ * The callers send the username and password with http basic authentication (see SecurityConfig),
+ * the tasks are the ones of the employee, the projects the ones of the manager, as on the pages.
+ * Every answer is one page of at most MAX_SIZE rows, ?fields=id,taskSubject keeps only the listed fields
+ * of every row. The json is compressed with gzip when the client accepts it (server.compression).
+ */
+@RestController
+@RequestMapping(value = "/api/v1", produces = "application/json")
+public class ApiController {
+
+    private static final int MAX_SIZE = 100;
+
+    private final TaskService taskService;
+    private final ProjectService projectService;
+    private final ObjectMapper objectMapper;
+
+    //the field names of the rows, the requested fields are checked against them
+    private final Set<String> taskFields;
+    private final Set<String> projectFields;
+
+    public ApiController(TaskService taskService, ProjectService projectService, ObjectMapper objectMapper) {
+        this.taskService = taskService;
+        this.projectService = projectService;
+        this.objectMapper = objectMapper;
+        this.taskFields = toMap(new TaskSummaryDTO()).keySet();
+        this.projectFields = toMap(new ProjectSummaryDTO()).keySet();
+    }
+
+    //the open and in progress tasks of the logged-in employee, oldest first
+    @GetMapping("/tasks/pending")
+    public ApiPageDTO pendingTasks(@RequestParam(value = "page", defaultValue = "0") int page,
+                                   @RequestParam(value = "size", defaultValue = "20") int size,
+                                   @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = select(fields, taskFields);
+        Slice<TaskSummaryDTO> tasks = taskService.listAllTasksByStatusIsNot(Status.COMPLETE, Math.max(page, 0), size(size));
+        return new ApiPageDTO(rows(tasks.getContent(), selected), tasks.getNumber(), tasks.getSize(), tasks.hasNext(),
+                null, null);
+    }
+
+    //the completed tasks of the logged-in employee, newest first, the next page is read with ?before=nextCursor
+    @GetMapping("/tasks/completed")
+    public ApiPageDTO completedTasks(@RequestParam(value = "before", required = false) Long before,
+                                     @RequestParam(value = "size", defaultValue = "20") int size,
+                                     @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = select(fields, taskFields);
+        Slice<TaskSummaryDTO> tasks = taskService.listAllTasksByStatus(Status.COMPLETE, before, size(size));
+        Long nextCursor = tasks.hasNext() ? tasks.getContent().get(tasks.getNumberOfElements() - 1).getId() : null;
+        return new ApiPageDTO(rows(tasks.getContent(), selected), 0, tasks.getSize(), tasks.hasNext(), null, nextCursor);
+    }
+
+    //the projects of the logged-in manager with their task counts, as on the project status page
+    @GetMapping("/projects")
+    public ApiPageDTO projects(@RequestParam(value = "page", defaultValue = "0") int page,
+                               @RequestParam(value = "size", defaultValue = "20") int size,
+                               @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = select(fields, projectFields);
+        Page<ProjectSummaryDTO> projects = projectService.listAllProjectDetails(
+                PageRequest.of(Math.max(page, 0), size(size), Sort.by("id")));
+        return new ApiPageDTO(rows(projects.getContent(), selected), projects.getNumber(), projects.getSize(),
+                projects.hasNext(), projects.getTotalElements(), null);
+    }
+
+    private int size(int size) {
+        return Math.min(Math.max(size, 1), MAX_SIZE);
+    }
+
+    //no fields parameter means every field, an unknown field is rejected instead of silently left out
+    private Set<String> select(String fields, Set<String> available) {
+        if (fields == null || fields.isBlank()) {
+            return available;
+        }
+        Set<String> selected = Arrays.stream(fields.split(",")).map(String::trim).filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+        if (!available.containsAll(selected)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown field, the fields are " + available);
+        }
+        return selected;
+    }
+
+    private List<Map<String, Object>> rows(List<?> dtos, Set<String> selected) {
+        return dtos.stream().map(dto -> {
+            Map<String, Object> row = toMap(dto);
+            row.keySet().retainAll(selected);
+            return row;
+        }).collect(Collectors.toList());
+    }
+
+    //the row as the ObjectMapper writes it, the dates are already formatted, the field order is kept
+    private Map<String, Object> toMap(Object dto) {
+        return objectMapper.convertValue(dto, new TypeReference<LinkedHashMap<String, Object>>() {
+        });
+    }
+}
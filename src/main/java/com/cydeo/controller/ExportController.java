@@ -0,0 +1,61 @@
+package com.cydeo.controller;
+
+import com.cydeo.enums.ExportFormat;
+import com.cydeo.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Downloads of the tasks of a project or an employee, and of all the projects.
+ * The rows are written into the response while they are read, nothing is collected before.
+ * The format is csv by default, json with ?format=JSON
+ */
+@Controller
+@RequestMapping("/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/tasks")
+    public void exportTasks(@RequestParam(value = "project", required = false) String projectCode,
+                            @RequestParam(value = "employee", required = false) String userName,
+                            @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format,
+                            HttpServletResponse response) throws IOException {
+        if (projectCode == null && userName == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "project or employee is required");
+            return;
+        }
+        if (projectCode != null) {
+            download(response, "tasks-" + projectCode, format);
+            exportService.exportTasksByProject(projectCode, format, response.getOutputStream());
+        } else {
+            download(response, "tasks-" + userName, format);
+            exportService.exportTasksByEmployee(userName, format, response.getOutputStream());
+        }
+    }
+
+    @GetMapping("/projects")
+    public void exportProjects(@RequestParam(value = "format", defaultValue = "CSV") ExportFormat format,
+                               HttpServletResponse response) throws IOException {
+        download(response, "projects", format);
+        exportService.exportProjects(format, response.getOutputStream());
+    }
+
+    //the headers are set before the first row is written, the browser saves the response as a file
+    private void download(HttpServletResponse response, String fileName, ExportFormat format) {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName.replaceAll("[^A-Za-z0-9@._-]", "_") + "." + format.getExtension() + "\"");
+    }
+}
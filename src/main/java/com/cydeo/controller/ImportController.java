@@ -0,0 +1,48 @@
+package com.cydeo.controller;
+
+import com.cydeo.enums.ImportFormat;
+import com.cydeo.enums.ImportType;
+import com.cydeo.service.ImportService;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The Admin uploads a CSV or JSON file of users, projects or tasks.
+ * The uploaded file is stored in a temporary file by the servlet container,
+ * the import reads it from there as a stream.
+ */
+@Controller
+@RequestMapping("/import")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @GetMapping
+    public String importPage(Model model) {
+        model.addAttribute("types", ImportType.values());
+        return "/import/upload";
+    }
+
+    @PostMapping
+    public String importFile(@RequestParam("type") ImportType type, @RequestParam("file") MultipartFile file,
+                             Model model) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            model.addAttribute("result", importService.importRecords(type,
+                    ImportFormat.fromFileName(file.getOriginalFilename()), inputStream));
+        }
+        model.addAttribute("types", ImportType.values());
+        return "/import/upload";
+    }
+}
@@ -0,0 +1,35 @@
+package com.cydeo.controller;
+
+import com.cydeo.dto.UserOptionDTO;
+import com.cydeo.service.UserService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * The lookups of the forms, the manager field of the project forms and the employee field of the task forms
+ * ask it for the users matching the typed text (see user-lookup.js) instead of rendering every user of the role.
+ * The answer is json, at most MAX_LIMIT users.
+ */
+@RestController
+@RequestMapping("/lookup")
+public class LookupController {
+
+    private static final int MAX_LIMIT = 20;
+
+    private final UserService userService;
+
+    public LookupController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping("/users")
+    public List<UserOptionDTO> lookupUsers(@RequestParam("role") String role,
+                                           @RequestParam(value = "q", defaultValue = "") String term,
+                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return userService.lookup(role, term, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
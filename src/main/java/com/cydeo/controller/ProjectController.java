@@ -2,25 +2,25 @@ package com.cydeo.controller;
 
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.service.ProjectService;
-import com.cydeo.service.UserService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @Controller
 @RequestMapping("/project")
 public class ProjectController {
 
     ProjectService projectService;
-    UserService userService;
 
-    public ProjectController(ProjectService projectService, UserService userService) {
+    public ProjectController(ProjectService projectService) {
         this.projectService = projectService;
-        this.userService = userService;
     }
 
     /**
@@ -29,11 +29,10 @@ public class ProjectController {
      * @return creat html under the project package
      */
     @GetMapping("/create")
-    public String createProject(Model model) {
+    public String createProject(@PageableDefault(sort = "id") Pageable pageable, Model model) {
 
         model.addAttribute("project", new ProjectDTO());
-        model.addAttribute("projects", projectService.listAllProjectDetails());
-        model.addAttribute("managers", userService.listAllByRole("manager"));
+        model.addAttribute("projects", projectService.listAllProjectDetails(pageable));
 
         return "/project/create";
     }
@@ -46,13 +45,13 @@ public class ProjectController {
      * @return create html under the project package
      */
     @PostMapping("/create")
-    public String insertProject(@Valid @ModelAttribute("project") ProjectDTO project,
-                                BindingResult bindingResult, Model model) {
+    public String insertProject(@Valid @ModelAttribute("project") ProjectDTO project, BindingResult bindingResult,
+                                @PageableDefault(sort = "id") Pageable pageable, Model model) {
+        rejectUnlessManager(project, bindingResult);
         if (bindingResult.hasErrors()) {
             //return projects assigned only to the manager, not all projects
            // model.addAttribute("projects", projectService.listAllProjects());
-            model.addAttribute("projects", projectService.listAllProjectDetails());
-            model.addAttribute("managers", userService.listAllByRole("manager"));
+            model.addAttribute("projects", projectService.listAllProjectDetails(pageable));
             return "/project/create";
         }
         projectService.save(project);
@@ -78,22 +77,28 @@ public class ProjectController {
 
     @GetMapping("/update/{project-code}")
     public String editProject(@PathVariable("project-code") String projectCode,
-                              Model model) {
+                              @PageableDefault(sort = "id") Pageable pageable, Model model) {
         model.addAttribute("project", projectService.getByProjectCode(projectCode));
-        model.addAttribute("projects", projectService.listAllProjectDetails());
-        model.addAttribute("managers", userService.listAllByRole("manager"));
+        model.addAttribute("projects", projectService.listAllProjectDetails(pageable));
         return "/project/update";
     }
 
     @PostMapping("/update")
-    public String updateProject(@Valid @ModelAttribute("project") ProjectDTO project,
-                                BindingResult bindingResult, Model model) {
+    public String updateProject(@Valid @ModelAttribute("project") ProjectDTO project, BindingResult bindingResult,
+                                @PageableDefault(sort = "id") Pageable pageable, Model model,
+                                RedirectAttributes redirectAttributes) {
+        rejectUnlessManager(project, bindingResult);
         if (bindingResult.hasErrors()) {
-            model.addAttribute("projects", projectService.listAllProjectDetails());
-            model.addAttribute("managers", userService.listAllByRole("manager"));
+            model.addAttribute("projects", projectService.listAllProjectDetails(pageable));
             return "/project/update";
         }
-        projectService.update(project);
+        try {
+            projectService.update(project);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            //someone else changed the project after the form was opened, show the current project again
+            redirectAttributes.addFlashAttribute("conflict", true);
+            return "redirect:/project/update/" + project.getProjectCode();
+        }
         return "redirect:/project/create";
     }
 
@@ -103,9 +108,23 @@ public class ProjectController {
      * @return Project List of the Project Status menu
      */
     @GetMapping("/manager/project-status")
-    public String getProjectByManager(Model model) {
-        List<ProjectDTO> projects = projectService.listAllProjectDetails();
-        model.addAttribute("projects", projects);
+    public String getProjectByManager(@PageableDefault(sort = "id") Pageable pageable, Model model) {
+        model.addAttribute("projects", projectService.listAllProjectDetails(pageable));
         return "/manager/project-status";
     }
+
+    /**
+     * The manager is typed into a lookup field, so any existing user name can be posted.
+     * Only users with the Manager role can manage a project.
+     */
+    private void rejectUnlessManager(ProjectDTO project, BindingResult bindingResult) {
+        if (bindingResult.hasFieldErrors("assignedManager")) {
+            return;
+        }
+        if (project.getAssignedManager() == null || project.getAssignedManager().getRole() == null
+                || !"Manager".equalsIgnoreCase(project.getAssignedManager().getRole().getDescription())) {
+            bindingResult.rejectValue("assignedManager", "Role");
+        }
+    }
+
 }
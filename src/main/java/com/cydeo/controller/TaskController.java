@@ -1,14 +1,20 @@
 package com.cydeo.controller;
 
 import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.TaskSummaryDTO;
 import com.cydeo.enums.Status;
 import com.cydeo.service.ProjectService;
 import com.cydeo.service.TaskService;
-import com.cydeo.service.UserService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
 
@@ -18,30 +24,27 @@ public class TaskController {
 
     private final TaskService taskService;
     private final ProjectService projectService;
-    private final UserService userService;
 
-    public TaskController(TaskService taskService, ProjectService projectService, UserService userService) {
+    public TaskController(TaskService taskService, ProjectService projectService) {
         this.taskService = taskService;
         this.projectService = projectService;
-        this.userService = userService;
     }
 
     @GetMapping("/create")
-    public String createTask(Model model) {
+    public String createTask(@PageableDefault(sort = "id") Pageable pageable, Model model) {
         model.addAttribute("task", new TaskDTO());
         model.addAttribute("projects", projectService.listAllProjects());
-        model.addAttribute("employees", userService.listAllByRole("employee"));
-        model.addAttribute("tasks", taskService.findAllTasks());
+        model.addAttribute("tasks", taskService.findAllTasks(pageable));
         return "task/create";
     }
 
     @PostMapping("/create")
-    public String insertTask(@Valid @ModelAttribute("task") TaskDTO task,
-                             BindingResult bindingResult, Model model) {
+    public String insertTask(@Valid @ModelAttribute("task") TaskDTO task, BindingResult bindingResult,
+                             @PageableDefault(sort = "id") Pageable pageable, Model model) {
+        rejectUnlessEmployee(task, bindingResult);
         if (bindingResult.hasErrors()) {
             model.addAttribute("projects", projectService.listAllProjects());
-            model.addAttribute("employees", userService.listAllByRole("employee"));
-            model.addAttribute("tasks", taskService.findAllTasks());
+            model.addAttribute("tasks", taskService.findAllTasks(pageable));
             return "/task/create";
         }
         taskService.save(task);
@@ -55,28 +58,53 @@ public class TaskController {
     }
 
     @GetMapping("/update/{taskId}")
-    public String editTask(@PathVariable("taskId") Long taskId, Model model) {
+    public String editTask(@PathVariable("taskId") Long taskId,
+                           @PageableDefault(sort = "id") Pageable pageable, Model model) {
         model.addAttribute("task", taskService.findById(taskId));
         model.addAttribute("projects", projectService.listAllProjects());
-        model.addAttribute("employees", userService.listAllByRole("employee"));
-        model.addAttribute("tasks", taskService.findAllTasks());
+        model.addAttribute("tasks", taskService.findAllTasks(pageable));
         return "task/update";
     }
 
     @PostMapping("/update/{id}")
-    public String updateTask(@ModelAttribute("task") TaskDTO task,
-                             BindingResult bindingResult, Model model) {
+    public String updateTask(@ModelAttribute("task") TaskDTO task, BindingResult bindingResult,
+                             @PageableDefault(sort = "id") Pageable pageable, Model model,
+                             RedirectAttributes redirectAttributes) {
 
+        rejectUnlessEmployee(task, bindingResult);
         if (bindingResult.hasErrors()) {
             model.addAttribute("projects", projectService.listAllProjects());
-            model.addAttribute("employees", userService.listAllByRole("employee"));
-            model.addAttribute("tasks", taskService.findAllTasks());
+            model.addAttribute("tasks", taskService.findAllTasks(pageable));
             return "/task/update";
         }
-        taskService.update(task);
+        try {
+            taskService.update(task);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            //someone else changed the task after the form was opened, show the current task again
+            redirectAttributes.addFlashAttribute("conflict", true);
+            return "redirect:/task/update/" + task.getId();
+        }
         return "redirect:/task/create";
     }
 
+    /**
+     * Full-text search of the tasks for the managers, instead of scrolling the whole task table.
+     * The results are ranked, read slice by slice and filtered by project and status.
+     */
+    @GetMapping("/search")
+    public String searchTasks(@RequestParam(value = "q", defaultValue = "") String query,
+                              @RequestParam(value = "project", required = false) String projectCode,
+                              @RequestParam(value = "status", required = false) Status status,
+                              @RequestParam(value = "page", defaultValue = "0") int page,
+                              @RequestParam(value = "size", defaultValue = "20") int size, Model model) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+        String project = projectCode == null || projectCode.isBlank() ? null : projectCode;
+        model.addAttribute("tasks", taskService.search(query, project, status, pageable));
+        model.addAttribute("projects", projectService.listAllProjectOptions());
+        model.addAttribute("statuses", Status.values());
+        return "task/search";
+    }
+
     @GetMapping("/employee/pending-tasks")
     public String employeePendingTasks(Model model) {
         model.addAttribute("tasks", taskService.listAllTasksByStatusIsNot(Status.COMPLETE));
@@ -95,7 +123,8 @@ public class TaskController {
     }
 
     @PostMapping("/employee/update/{id}")
-    public String employeeUpdateTask(@ModelAttribute("task") TaskDTO task, BindingResult bindingResult, Model model) {
+    public String employeeUpdateTask(@ModelAttribute("task") TaskDTO task, BindingResult bindingResult, Model model,
+                                     RedirectAttributes redirectAttributes) {
 
         if (bindingResult.hasErrors()) {
 
@@ -105,13 +134,40 @@ public class TaskController {
             return "/task/status-update";
 
         }
-        taskService.updateStatus(task);
+        try {
+            taskService.updateStatus(task);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            redirectAttributes.addFlashAttribute("conflict", true);
+            return "redirect:/task/employee/edit/" + task.getId();
+        }
         return "redirect:/task/employee/pending-tasks";
     }
 
+    /**
+     * The archive keeps every completed task, it is read slice by slice
+     * with the id of the last shown task as the cursor of the next slice
+     */
     @GetMapping("/employee/archive")
-    public String employeeArchivedTasks(Model model) {
-        model.addAttribute("tasks", taskService.listAllTasksByStatus(Status.COMPLETE));
+    public String employeeArchivedTasks(@RequestParam(value = "before", required = false) Long before,
+                                        @RequestParam(value = "size", defaultValue = "10") int size, Model model) {
+        Slice<TaskSummaryDTO> tasks = taskService.listAllTasksByStatus(Status.COMPLETE, before, Math.min(Math.max(size, 1), 100));
+        model.addAttribute("tasks", tasks);
+        model.addAttribute("nextCursor", tasks.hasContent() ? tasks.getContent().get(tasks.getNumberOfElements() - 1).getId() : null);
         return "task/archive";
     }
+
+    /**
+     * The employee is typed into a lookup field, so any existing user name can be posted.
+     * Only users with the Employee role can be assigned a task.
+     */
+    private void rejectUnlessEmployee(TaskDTO task, BindingResult bindingResult) {
+        if (bindingResult.hasFieldErrors("assignedEmployee")) {
+            return;
+        }
+        if (task.getAssignedEmployee() == null || task.getAssignedEmployee().getRole() == null
+                || !"Employee".equalsIgnoreCase(task.getAssignedEmployee().getRole().getDescription())) {
+            bindingResult.rejectValue("assignedEmployee", "Role");
+        }
+    }
+
 }
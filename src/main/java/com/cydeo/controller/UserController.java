@@ -3,10 +3,14 @@ package com.cydeo.controller;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.service.RoleService;
 import com.cydeo.service.UserService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 @RequestMapping("/user")
@@ -21,21 +25,22 @@ public class UserController {
     }
 
     @GetMapping("/create")
-    public String createUser(Model model) {
+    public String createUser(@PageableDefault(sort = "firstName") Pageable pageable, Model model) {
         model.addAttribute("user", new UserDTO());
         model.addAttribute("roles", roleService.listAllRoles());
-        model.addAttribute("users", userService.listAllUsers());
+        model.addAttribute("users", userService.listAllUsers(pageable));
         return "/user/create";
     }
 
 
     @PostMapping("/create")
   //  public String insertUser(@Valid @ModelAttribute("user") UserDTO user, BindingResult bindingResult, Model model) {
-    public String insertUser(@ModelAttribute("user") UserDTO user, BindingResult bindingResult, Model model) {
+    public String insertUser(@ModelAttribute("user") UserDTO user, BindingResult bindingResult,
+                             @PageableDefault(sort = "firstName") Pageable pageable, Model model) {
 
         if (bindingResult.hasErrors()) {
             model.addAttribute("roles", roleService.listAllRoles());
-            model.addAttribute("users", userService.listAllUsers());
+            model.addAttribute("users", userService.listAllUsers(pageable));
             return "/user/create";
         }
         userService.save(user);
@@ -43,21 +48,30 @@ public class UserController {
     }
 
     @GetMapping("/update/{username}")
-    public String editUser(@PathVariable("username") String username, Model model) {
+    public String editUser(@PathVariable("username") String username,
+                           @PageableDefault(sort = "firstName") Pageable pageable, Model model) {
         model.addAttribute("user", userService.findByUserName(username));
         model.addAttribute("roles", roleService.listAllRoles());
-        model.addAttribute("users", userService.listAllUsers());
+        model.addAttribute("users", userService.listAllUsers(pageable));
         return "/user/update";
     }
 
     @PostMapping("/update")
-    public String updateUser(@ModelAttribute("user") UserDTO user, BindingResult bindingResult, Model model) {
+    public String updateUser(@ModelAttribute("user") UserDTO user, BindingResult bindingResult,
+                             @PageableDefault(sort = "firstName") Pageable pageable, Model model,
+                             RedirectAttributes redirectAttributes) {
         if (bindingResult.hasErrors()) {
             model.addAttribute("roles", roleService.listAllRoles());
-            model.addAttribute("users", userService.listAllUsers());
+            model.addAttribute("users", userService.listAllUsers(pageable));
             return "/user/update";
         }
-        userService.update(user);
+        try {
+            userService.update(user);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            //someone else changed the user after the form was opened, show the current user again
+            redirectAttributes.addFlashAttribute("conflict", true);
+            return "redirect:/user/update/" + user.getUserName();
+        }
         return "redirect:/user/create";
     }
 
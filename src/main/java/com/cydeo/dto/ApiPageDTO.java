@@ -0,0 +1,27 @@
+package com.cydeo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of rows answered by the json api. Every row holds only the fields the client asked for.
+ * The total is sent for the counted pages only, the next cursor for the keyset reads only.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ApiPageDTO {
+
+    private List<Map<String, Object>> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    private Long nextCursor;
+}
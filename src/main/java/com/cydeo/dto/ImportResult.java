@@ -0,0 +1,42 @@
+package com.cydeo.dto;
+
+import com.cydeo.enums.ImportType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of an import, displayed on the import page after the upload.
+ * Only the first MAX_ERRORS rejected rows are described, the uploaded file may have millions of rows.
+ */
+@NoArgsConstructor
+@Data
+public class ImportResult {
+
+    public static final int MAX_ERRORS = 100;
+
+    private ImportType type;
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private List<String> errors = new ArrayList<>();
+    private String failure;//set if the import stopped before the end of the file
+    private long elapsedMillis;
+
+    public ImportResult(ImportType type) {
+        this.type = type;
+    }
+
+    public void reject(long row, String message) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Row " + row + ": " + message);
+        }
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead : rowsRead * 1000 / elapsedMillis;
+    }
+}
@@ -13,7 +13,7 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-public class ProjectDTO {
+public class ProjectDTO implements TaskCounts {
 
     private Long id;
     @NotBlank
@@ -38,6 +38,8 @@ public class ProjectDTO {
 
     private Status projectStatus;
 
+    private Long version;//the version the project was loaded with, checked by the update
+
     private int completeTaskCounts;
     private int unfinishedTaskCounts;
 
@@ -0,0 +1,18 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A project offered by the project filter of the task search, the code is the value the form submits,
+ * the name is what the user sees. The repository selects it directly with a constructor expression.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ProjectOptionDTO {
+
+    private String projectCode;
+    private String projectName;
+}
@@ -0,0 +1,40 @@
+package com.cydeo.dto;
+
+import com.cydeo.enums.Status;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A row of the project tables, only the columns the tables display.
+ * The repository selects it directly with a constructor expression, the task counts are assigned afterwards.
+ */
+@NoArgsConstructor
+@Data
+public class ProjectSummaryDTO implements TaskCounts {
+
+    private Long id;
+    private String projectCode;
+    private String projectName;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String managerFirstName;
+    private String managerLastName;
+    private Status projectStatus;
+
+    private int completeTaskCounts;
+    private int unfinishedTaskCounts;
+
+    public ProjectSummaryDTO(Long id, String projectCode, String projectName, LocalDate startDate, LocalDate endDate,
+                             String managerFirstName, String managerLastName, Status projectStatus) {
+        this.id = id;
+        this.projectCode = projectCode;
+        this.projectName = projectName;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.managerFirstName = managerFirstName;
+        this.managerLastName = managerLastName;
+        this.projectStatus = projectStatus;
+    }
+}
@@ -0,0 +1,18 @@
+package com.cydeo.dto;
+
+/**
+ * A project row showing the number of its completed and unfinished tasks,
+ * TaskService.assignTaskCounts() fills in the counts of a list of them with one query
+ */
+public interface TaskCounts {
+
+    Long getId();
+
+    int getCompleteTaskCounts();
+
+    void setCompleteTaskCounts(int completeTaskCounts);
+
+    int getUnfinishedTaskCounts();
+
+    void setUnfinishedTaskCounts(int unfinishedTaskCounts);
+}
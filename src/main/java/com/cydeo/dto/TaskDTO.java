@@ -30,6 +30,10 @@ public class TaskDTO {
     private Status taskStatus;
     private LocalDate assignedDate;
 
+    //the version and the status the task was loaded with, the status update is applied only if both are unchanged
+    private Long version;
+    private Status previousTaskStatus;
+
     public TaskDTO(ProjectDTO project, UserDTO assignedEmployee,
                    String taskSubject, String taskDetail,
                    Status taskStatus, LocalDate assignedDate) {
@@ -0,0 +1,28 @@
+package com.cydeo.dto;
+
+import com.cydeo.enums.Status;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A row of the task tables, only the columns the tables display.
+ * The repository selects it directly with a constructor expression,
+ * no task, project or user entity is loaded or converted for it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class TaskSummaryDTO {
+
+    private Long id;
+    private String projectCode;
+    private String projectName;
+    private String taskSubject;
+    private String employeeFirstName;
+    private String employeeLastName;
+    private LocalDate assignedDate;
+    private Status taskStatus;
+}
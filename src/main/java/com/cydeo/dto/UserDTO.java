@@ -55,6 +55,8 @@ public class UserDTO {
     @NotNull
     private Gender gender;
 
+    private Long version;//the version the user was loaded with, checked by the update
+
     public String getPassWord() {
         return passWord;
     }
@@ -136,4 +138,12 @@ public class UserDTO {
         this.gender = gender;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user offered by the manager and employee lookups of the forms, the username is the value the form submits,
+ * the name is what the user sees. The repository selects it directly with a constructor expression.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class UserOptionDTO {
+
+    private String userName;
+    private String firstName;
+    private String lastName;
+}
@@ -0,0 +1,23 @@
+package com.cydeo.dto;
+
+import com.cydeo.enums.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of the user tables, only the columns the tables display, never the password.
+ * The repository selects it directly with a constructor expression.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class UserSummaryDTO {
+
+    private String firstName;
+    private String lastName;
+    private String userName;
+    private Gender gender;
+    private String phone;
+    private String roleDescription;
+}
@@ -0,0 +1,70 @@
+package com.cydeo.entity;
+
+import com.cydeo.enums.AuditAction;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One change of an audited entity: the inserted row, or one changed field with its old and new value,
+ * with the user who made it. The rows are only appended, never updated.
+ * It is not a BaseEntity, the audit log is not audited itself.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "audit_log")
+public class AuditLog {
+
+    //the values are cut to the length of the column
+    public static final int VALUE_LENGTH = 255;
+
+    //a sequence of its own, 50 ids are reserved per call so the inserts are sent in jdbc batches
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_log_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String entityType;//the entity class, such as Task
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AuditAction action;
+
+    private String fieldName;//null for an insert
+    private String oldValue;
+    private String newValue;
+
+    private Long userId;//null when the change was not made by a logged-in user
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+    public AuditLog(String entityType, Long entityId, AuditAction action, String fieldName,
+                    Object oldValue, Object newValue, Long userId, LocalDateTime changedAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.action = action;
+        this.fieldName = fieldName;
+        this.oldValue = toColumnValue(oldValue);
+        this.newValue = toColumnValue(newValue);
+        this.userId = userId;
+        this.changedAt = changedAt;
+    }
+
+    private static String toColumnValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return text.length() > VALUE_LENGTH ? text.substring(0, VALUE_LENGTH) : text;
+    }
+}
@@ -9,6 +9,8 @@ import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Entity
 @Table(name = "projects")
@@ -16,6 +18,10 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Where(clause = "is_deleted=false")
+//fetch plan for the project tables, loads the manager with the role in the same select
+@NamedEntityGraph(name = "Project.manager",
+        attributeNodes = @NamedAttributeNode(value = "assignedManager", subgraph = "manager"),
+        subgraphs = @NamedSubgraph(name = "manager", attributeNodes = @NamedAttributeNode("role")))
 public class Project extends BaseEntity {
 
     @Column(unique = true)//to avoid project code duplication
@@ -37,4 +43,18 @@ public class Project extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
     private Status projectStatus;
+
+    @Override
+    public Map<String, Object> auditedValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("projectCode", projectCode);
+        values.put("projectName", projectName);
+        values.put("assignedManager", assignedManager == null ? null : assignedManager.getId());
+        values.put("startDate", startDate);
+        values.put("endDate", endDate);
+        values.put("projectDetail", projectDetail);
+        values.put("projectStatus", projectStatus);
+        values.put("isDeleted", isDeleted);
+        return values;
+    }
 }
@@ -0,0 +1,31 @@
+package com.cydeo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The number of completed and unfinished tasks of a project, kept up to date
+ * by the task writes in the same transaction, so the project tables do not count the tasks.
+ * It is not a BaseEntity, the row is keyed by the project id and has no audit columns.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "project_task_counters")
+public class ProjectTaskCounter {
+
+    @Id
+    private Long projectId;
+
+    private int completeCount;
+
+    private int unfinishedCount;
+}
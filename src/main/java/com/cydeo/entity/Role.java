@@ -4,7 +4,10 @@ import com.cydeo.entity.common.BaseEntity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 
@@ -13,6 +16,11 @@ import javax.persistence.Table;
 @Data
 @Entity
 @Table(name="roles")
+//the three roles are inserted by the migrations and never change at runtime,
+//so they are kept in the second-level cache and findById() does not run a select after the first one.
+//NONSTRICT_READ_WRITE instead of READ_ONLY, a role loaded in the transaction that inserted it is not rejected
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Role extends BaseEntity {
 
     private String description;
@@ -9,6 +9,8 @@ import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Entity
 @Table(name = "tasks")
@@ -16,6 +18,14 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Where(clause = "is_deleted=false")
+//fetch plan for the task tables, loads the project, its manager and the employee with their roles in one select
+@NamedEntityGraph(name = "Task.projectAndEmployee",
+        attributeNodes = {
+                @NamedAttributeNode(value = "project", subgraph = "project"),
+                @NamedAttributeNode(value = "assignedEmployee", subgraph = "user")},
+        subgraphs = {
+                @NamedSubgraph(name = "project", attributeNodes = @NamedAttributeNode(value = "assignedManager", subgraph = "user")),
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role"))})
 public class Task extends BaseEntity {
     private String taskSubject;
     private String taskDetail;
@@ -32,4 +42,21 @@ public class Task extends BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)//many tasks can be assigned to one project
     private Project project;
 
+    //the partition of the row, false for a new task. The TaskArchiveService sets it for the completed and deleted tasks,
+    //so the pending task queries read a small partition. A task that is opened again goes back to the active one
+    private boolean archived;
+
+    //who changed the status, the employee or the project of a task is written to the audit log
+    @Override
+    public Map<String, Object> auditedValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("taskSubject", taskSubject);
+        values.put("taskDetail", taskDetail);
+        values.put("taskStatus", taskStatus);
+        values.put("assignedDate", assignedDate);
+        values.put("assignedEmployee", assignedEmployee == null ? null : assignedEmployee.getId());
+        values.put("project", project == null ? null : project.getId());
+        values.put("isDeleted", isDeleted);
+        return values;
+    }
 }
@@ -8,6 +8,8 @@ import lombok.Setter;
 import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @NoArgsConstructor
 @Getter
@@ -36,4 +38,19 @@ public class User extends BaseEntity {
 
     @Enumerated(EnumType.STRING)//to avoid the default 0 & 1 ordinal values
     private Gender gender;
+
+    //the password is not written to the audit log
+    @Override
+    public Map<String, Object> auditedValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("firstName", firstName);
+        values.put("lastName", lastName);
+        values.put("userName", userName);
+        values.put("enabled", enabled);
+        values.put("phone", phone);
+        values.put("role", role == null ? null : role.getId());
+        values.put("gender", gender);
+        values.put("isDeleted", isDeleted);
+        return values;
+    }
 }
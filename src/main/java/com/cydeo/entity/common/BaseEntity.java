@@ -1,12 +1,22 @@
 package com.cydeo.entity.common;
 
 import com.cydeo.service.impl.BaseEntityListener;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 
 @NoArgsConstructor
@@ -16,8 +26,11 @@ import java.time.LocalDateTime;
 @EntityListeners(BaseEntityListener.class)
 public class BaseEntity {
 
+    //ids come from one sequence shared by all the tables, 50 ids are reserved per call,
+    //so hibernate knows the ids before the inserts and can send the inserts in jdbc batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_id_seq")
+    @SequenceGenerator(name = "entity_id_seq", sequenceName = "entity_id_seq", allocationSize = 50)
     public Long id;
     @Column(nullable = false, updatable = false)//to make the column not updatable and not null
     public LocalDateTime insertDateTime;
@@ -31,4 +44,61 @@ public class BaseEntity {
     //in real life deleting a row from a database is not good practice,
     // however most companies implement triggering, and use flags
     public Boolean isDeleted=false;
+
+    //incremented by every update, an update of a row that was changed in the meantime fails instead of overwriting it.
+    //primitive, hibernate and spring data would take an entity converted from a DTO with a null version for a new one
+    @Version
+    public long version;
+
+    /**
+     * This method compares the version a form was loaded with to the version of the entity,
+     * a different version means someone else saved it in the meantime
+     * @param expectedVersion Long version of the DTO, null skips the check
+     */
+    public void checkVersion(Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new ObjectOptimisticLockingFailureException(getClass(), id);
+        }
+    }
+
+    //the audited values as they were loaded or last written, the next update is compared with them
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient Map<String, Object> auditedState;
+
+    /**
+     * The fields whose changes are written to the audit log, by their name.
+     * An association is given by its id, so the lazy proxy is not loaded.
+     * The entities that do not override it, such as Role, are not audited.
+     * @return the current values of the audited fields
+     */
+    public Map<String, Object> auditedValues() {
+        return Collections.emptyMap();
+    }
+
+    //called by the BaseEntityListener when the entity is loaded or written
+    public void rememberAuditedValues() {
+        auditedState = auditedValues();
+    }
+
+    /**
+     * This method compares the audited fields with the remembered values
+     * and remembers the current ones, so the same change is not returned twice
+     * @return the changed fields with their old and new value
+     */
+    public Map<String, Object[]> auditedChanges() {
+        Map<String, Object> previous = auditedState == null ? Collections.emptyMap() : auditedState;
+        Map<String, Object> current = auditedValues();
+        Map<String, Object[]> changes = new LinkedHashMap<>();
+        current.forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) {
+                changes.put(field, new Object[]{previous.get(field), value});
+            }
+        });
+        auditedState = current;
+        return changes;
+    }
 }
@@ -62,4 +62,9 @@ public class UserPrincipal implements UserDetails {
     public Long getId() {
         return this.user.getId();
     }
+
+    //the role description, such as Manager, loaded together with the user at login
+    public String getRole() {
+        return this.user.getRole().getDescription();
+    }
 }
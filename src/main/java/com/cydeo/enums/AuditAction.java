@@ -0,0 +1,6 @@
+package com.cydeo.enums;
+
+public enum AuditAction {
+
+    INSERT, UPDATE
+}
@@ -0,0 +1,11 @@
+package com.cydeo.enums;
+
+public enum ImportFormat {
+
+    CSV, JSON;
+
+    //the format of an uploaded file is taken from its extension, csv is the default
+    public static ImportFormat fromFileName(String fileName) {
+        return fileName != null && fileName.toLowerCase().endsWith(".json") ? JSON : CSV;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cydeo.enums;
+
+public enum ImportType {
+
+    USERS("Users"), PROJECTS("Projects"), TASKS("Tasks");
+
+    private final String value;
+
+    ImportType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
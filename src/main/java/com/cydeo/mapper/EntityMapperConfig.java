@@ -0,0 +1,31 @@
+package com.cydeo.mapper;
+
+import com.cydeo.entity.common.BaseEntity;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingInheritanceStrategy;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Shared configuration of the MapStruct mappers.
+ * The mapper implementations are generated at compile time as plain getter/setter calls
+ * and registered as spring beans with constructor injection.
+ * Every target property must be mapped or ignored explicitly, otherwise the build fails,
+ * so a new field never gets copied (or skipped) silently.
+ * The audit columns of the BaseEntity are filled by the BaseEntityListener,
+ * they are never taken from a DTO.
+ */
+@MapperConfig(componentModel = "spring",
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR,
+        unmappedTargetPolicy = ReportingPolicy.ERROR,
+        mappingInheritanceStrategy = MappingInheritanceStrategy.AUTO_INHERIT_FROM_CONFIG)
+public interface EntityMapperConfig {
+
+    @Mapping(target = "insertDateTime", ignore = true)
+    @Mapping(target = "insertUserId", ignore = true)
+    @Mapping(target = "lastUpdateDateTime", ignore = true)
+    @Mapping(target = "lastUpdateUserId", ignore = true)
+    @Mapping(target = "isDeleted", ignore = true)
+    BaseEntity convertToEntity(Object dto);
+}
@@ -2,32 +2,25 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.entity.Project;
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 /**
  * In this ProjectMapper class Project entities are converted into DTO and vice-versa.
- * ModelMapper is used to convert entities into DTOs and vice-versa.
+ * MapStruct generates the implementation (ProjectMapperImpl) at compile time.
+ * The only nested association is the assigned manager, it is converted by the UserMapper.
  * Data that come from the database might have extra fields/columns
  * such as Inserted-Date-Time, Updated-Date-Time, etc. and we do not
  * want to display these extra fields/data in the UI. That is why we have two separate folders
- * To inject this class object add the @Component annotation
- * you may create the ModelMapper bean in the runner class
  */
-@Component
-public class ProjectMapper {
-    private final ModelMapper modelMapper;
-
-    public ProjectMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@Mapper(config = EntityMapperConfig.class, uses = UserMapper.class)
+public interface ProjectMapper {
 
     //convert into entity
-    public Project convertToEntity(ProjectDTO dto) {
-        return modelMapper.map(dto, Project.class);
-    }
-    //convert into dto
-    public ProjectDTO convertToDTO(Project entity) {
-        return modelMapper.map(entity, ProjectDTO.class);
-    }
+    Project convertToEntity(ProjectDTO dto);
+
+    //convert into dto, the task counts are not columns, they are calculated by the TaskService
+    @Mapping(target = "completeTaskCounts", ignore = true)
+    @Mapping(target = "unfinishedTaskCounts", ignore = true)
+    ProjectDTO convertToDTO(Project entity);
 }
@@ -2,31 +2,26 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.entity.Task;
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 /**
  * In this TaskMapper class Task entities are converted into DTO and vice-versa.
- * ModelMapper is used to convert entities into DTOs and vice-versa.
+ * MapStruct generates the implementation (TaskMapperImpl) at compile time.
+ * The nested associations are the project (ProjectMapper) and the assigned employee (UserMapper),
+ * make sure they are fetched with the task before converting it into a DTO.
  * Data that come from the database might have extra fields/columns
  * such as Inserted-Date-Time, Updated-Date-Time, etc. and we do not
  * want to display these extra fields/data in the UI. That is why we have two separate folders
- * To inject this class object add the @Component annotation
- * you may create the ModelMapper bean in the runner class
  */
-@Component
-public class TaskMapper {
-    private final ModelMapper modelMapper;
+@Mapper(config = EntityMapperConfig.class, uses = {ProjectMapper.class, UserMapper.class})
+public interface TaskMapper {
 
-    public TaskMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+    //the partition of a task is not shown in the UI, a converted task is a new or an active one
+    @Mapping(target = "archived", ignore = true)
+    Task convertToEntity(TaskDTO dto);
 
-    public Task convertToEntity(TaskDTO dto) {
-        return modelMapper.map(dto, Task.class);
-    }
-
-    public TaskDTO convertToDTO(Task entity) {
-        return modelMapper.map(entity, TaskDTO.class);
-    }
+    //the loaded status is kept as the previous status of the status update form
+    @Mapping(target = "previousTaskStatus", source = "taskStatus")
+    TaskDTO convertToDTO(Task entity);
 }
@@ -0,0 +1,16 @@
+package com.cydeo.projection;
+
+/**
+ * The id, the code and the name of a project,
+ * the import resolves the project codes of the uploaded rows with it without loading the projects
+ */
+public interface ProjectLookup {
+
+    Long getId();
+
+    String getProjectCode();
+
+    String getProjectName();
+
+    Boolean getIsDeleted();
+}
@@ -0,0 +1,17 @@
+package com.cydeo.projection;
+
+import com.cydeo.enums.Status;
+
+/**
+ * One row of the grouped task count query, the number of tasks
+ * of a project having a certain status.
+ * Spring Data creates the implementation from the aliases of the query.
+ */
+public interface ProjectTaskCount {
+
+    Long getProjectId();
+
+    Status getTaskStatus();
+
+    Long getTaskCount();
+}
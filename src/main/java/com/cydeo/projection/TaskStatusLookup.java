@@ -0,0 +1,14 @@
+package com.cydeo.projection;
+
+import com.cydeo.enums.Status;
+
+/**
+ * The id and the status of a task, read before the bulk updates of the tasks of a project
+ * so that one audit log entry can be recorded for every task they change
+ */
+public interface TaskStatusLookup {
+
+    Long getId();
+
+    Status getTaskStatus();
+}
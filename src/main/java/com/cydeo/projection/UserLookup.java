@@ -0,0 +1,14 @@
+package com.cydeo.projection;
+
+/**
+ * The id, the username and the role of a user,
+ * the import resolves the usernames of the uploaded rows with it without loading the users
+ */
+public interface UserLookup {
+
+    Long getId();
+
+    String getUserName();
+
+    String getRoleDescription();
+}
@@ -0,0 +1,12 @@
+package com.cydeo.repository;
+
+import com.cydeo.entity.AuditLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+
+    //the history of one entity, oldest change first
+    List<AuditLog> findAllByEntityTypeAndEntityIdOrderById(String entityType, Long entityId);
+}
@@ -1,13 +1,77 @@
 package com.cydeo.repository;
 
+import com.cydeo.dto.ProjectOptionDTO;
+import com.cydeo.dto.ProjectSummaryDTO;
 import com.cydeo.entity.Project;
 import com.cydeo.entity.User;
+import com.cydeo.projection.ProjectLookup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+    //the manager is converted with the project in every caller, so it is fetched in the same select
+    @EntityGraph("Project.manager")
     Project findByProjectCode(String code);//fetches a code from the db
 
+    //the manager and its role are fetched with the projects, not one by one while converting into DTOs
+    @Override
+    @EntityGraph("Project.manager")
+    List<Project> findAll();
+
+    @EntityGraph("Project.manager")
     List<Project> findAllProjectsByAssignedManager(User manager);
+
+    //keyed by the manager id of the logged-in user, compared with the manager_id column
+    @EntityGraph("Project.manager")
+    List<Project> findAllProjectsByAssignedManagerId(Long managerId);
+
+    //one page of the project table, the manager is joined for the name only
+    @Query(value = "SELECT new com.cydeo.dto.ProjectSummaryDTO(p.id, p.projectCode, p.projectName, p.startDate, " +
+            "p.endDate, m.firstName, m.lastName, p.projectStatus) FROM Project p JOIN p.assignedManager m WHERE m.id = ?1",
+            countQuery = "SELECT COUNT(p) FROM Project p WHERE p.assignedManager.id = ?1")
+    Page<ProjectSummaryDTO> findAllSummariesByAssignedManagerId(Long managerId, Pageable pageable);
+
+    //the code and the name of the projects for the project filter of the task search, not the projects with their managers
+    @Query("SELECT new com.cydeo.dto.ProjectOptionDTO(p.projectCode, p.projectName) FROM Project p ORDER BY p.projectCode")
+    List<ProjectOptionDTO> findAllOptions();
+
+    /**
+     * The id, code and name of every project for the import.
+     * Native query, so the soft deleted projects are read too, their names are still unique in the table
+     */
+    @Query(value = "SELECT id AS \"id\", project_code AS \"projectCode\", project_name AS \"projectName\", " +
+            "is_deleted AS \"isDeleted\" FROM projects", nativeQuery = true)
+    List<ProjectLookup> findAllLookups();
+
+    //read by the export as a stream, 500 rows at a time, must be consumed in a transaction
+    @EntityGraph("Project.manager")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Project> streamAllByOrderByProjectCode();
+
+    /**
+     * The ids of a chunk of the projects soft deleted before the given time, for the purge.
+     * A project is purged after all its tasks, even the deleted ones, were purged.
+     */
+    @Query(value = "SELECT p.id FROM projects p WHERE p.is_deleted = true AND p.last_update_date_time < ?1 " +
+            "AND NOT EXISTS (SELECT 1 FROM tasks t WHERE t.project_id = p.id) LIMIT ?2", nativeQuery = true)
+    List<Long> findPurgeableIds(LocalDateTime deletedBefore, int limit);
+
+    //hard delete, the task counters of the projects must be deleted first
+    @Modifying
+    @Query(value = "DELETE FROM projects WHERE id IN ?1", nativeQuery = true)
+    int purgeAllByIdIn(Collection<Long> ids);
 }
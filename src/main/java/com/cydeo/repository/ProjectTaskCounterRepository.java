@@ -0,0 +1,36 @@
+package com.cydeo.repository;
+
+import com.cydeo.entity.ProjectTaskCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ProjectTaskCounterRepository extends JpaRepository<ProjectTaskCounter, Long>,
+        ProjectTaskCounterRepositoryCustom {
+
+    //the counter row of one project, locked until the end of the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ProjectTaskCounter c WHERE c.projectId = ?1")
+    Optional<ProjectTaskCounter> findByIdForUpdate(Long projectId);
+
+    //all the unfinished tasks of the project are completed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProjectTaskCounter c SET c.completeCount = c.completeCount + c.unfinishedCount, " +
+            "c.unfinishedCount = 0 WHERE c.projectId = ?1")
+    int completeAll(Long projectId);
+
+    //all the tasks of the project are deleted
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProjectTaskCounter c SET c.completeCount = 0, c.unfinishedCount = 0 WHERE c.projectId = ?1")
+    int resetCounts(Long projectId);
+
+    //the counters of the purged projects
+    @Modifying
+    @Query(value = "DELETE FROM project_task_counters WHERE project_id IN ?1", nativeQuery = true)
+    int deleteAllByProjectIdIn(Collection<Long> projectIds);
+}
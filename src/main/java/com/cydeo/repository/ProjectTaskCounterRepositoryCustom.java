@@ -0,0 +1,15 @@
+package com.cydeo.repository;
+
+/**
+ * The statements of the task counters that cannot be written as one query for every database,
+ * ProjectTaskCounterRepositoryImpl implements them and Spring Data adds them to the ProjectTaskCounterRepository
+ */
+public interface ProjectTaskCounterRepositoryCustom {
+
+    /**
+     * Adds to the counts of a project in the database, the row is created with the counts when the project has none.
+     * One statement, so concurrent first task writes of a project do not both try to insert the row,
+     * and a negative count is added as it is, a drift is not hidden.
+     */
+    void upsert(Long projectId, int complete, int unfinished);
+}
@@ -0,0 +1,51 @@
+package com.cydeo.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Postgres adds to an existing counter row with INSERT ... ON CONFLICT DO UPDATE,
+ * the in-memory H2 database of the tests does not know it and runs the equivalent MERGE.
+ */
+public class ProjectTaskCounterRepositoryImpl implements ProjectTaskCounterRepositoryCustom {
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO project_task_counters " +
+            "(project_id, complete_count, unfinished_count) VALUES (?1, ?2, ?3) " +
+            "ON CONFLICT (project_id) DO UPDATE SET " +
+            "complete_count = project_task_counters.complete_count + EXCLUDED.complete_count, " +
+            "unfinished_count = project_task_counters.unfinished_count + EXCLUDED.unfinished_count";
+
+    private static final String MERGE_UPSERT = "MERGE INTO project_task_counters c " +
+            "USING (VALUES (CAST(?1 AS BIGINT), CAST(?2 AS INTEGER), CAST(?3 AS INTEGER))) " +
+            "s (project_id, complete_count, unfinished_count) ON c.project_id = s.project_id " +
+            "WHEN MATCHED THEN UPDATE SET complete_count = c.complete_count + s.complete_count, " +
+            "unfinished_count = c.unfinished_count + s.unfinished_count " +
+            "WHEN NOT MATCHED THEN INSERT (project_id, complete_count, unfinished_count) " +
+            "VALUES (s.project_id, s.complete_count, s.unfinished_count)";
+
+    //the shared entity manager, bound to the transaction of the caller
+    private final EntityManager entityManager;
+    private final String upsert;
+
+    public ProjectTaskCounterRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        this.upsert = dialect instanceof PostgreSQL81Dialect ? POSTGRES_UPSERT : MERGE_UPSERT;
+    }
+
+    //the pending changes are written first and the loaded counters are dropped after, as @Modifying does for the others
+    @Override
+    public void upsert(Long projectId, int complete, int unfinished) {
+        entityManager.flush();
+        entityManager.createNativeQuery(upsert)
+                .setParameter(1, projectId)
+                .setParameter(2, complete)
+                .setParameter(3, unfinished)
+                .executeUpdate();
+        entityManager.clear();
+    }
+}
@@ -1,29 +1,189 @@
 package com.cydeo.repository;
 
+import com.cydeo.dto.TaskSummaryDTO;
 import com.cydeo.entity.Project;
 import com.cydeo.entity.Task;
 import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
+import com.cydeo.projection.ProjectTaskCount;
+import com.cydeo.projection.TaskStatusLookup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
 
-    @Query("SELECT COUNT(t) FROM Task t WHERE t.project.projectCode = ?1 AND t.taskStatus <> 'COMPLETE' ")
-    int totalUncompletedTasks(String projectCode);
+    //the columns of a task table row, the project and the employee are joined for their names only
+    String TASK_SUMMARY = "SELECT new com.cydeo.dto.TaskSummaryDTO(t.id, p.projectCode, p.projectName, t.taskSubject, " +
+            "e.firstName, e.lastName, t.assignedDate, t.taskStatus) FROM Task t JOIN t.project p JOIN t.assignedEmployee e";
+
+    /**
+     * Counts the tasks of all the given projects in one round trip,
+     * one row for every project and status pair
+     */
+    @Query("SELECT t.project.id AS projectId, t.taskStatus AS taskStatus, COUNT(t) AS taskCount " +
+            "FROM Task t WHERE t.project.id IN ?1 GROUP BY t.project.id, t.taskStatus")
+    List<ProjectTaskCount> countTasksByProjectAndStatus(Collection<Long> projectIds);
 
-    @Query(value = "SELECT COUNT(*)" +
-            "FROM tasks t JOIN projects p on t.project_id = p.id " +
-            "WHERE p.project_code = ?1 AND t.task_status = 'COMPLETE'", nativeQuery = true)
-    int totalCompletedTasks(String projectCode);
+    //the same counts for every project, compared with the task counters by the reconciliation
+    @Query("SELECT t.project.id AS projectId, t.taskStatus AS taskStatus, COUNT(t) AS taskCount " +
+            "FROM Task t GROUP BY t.project.id, t.taskStatus")
+    List<ProjectTaskCount> countAllTasksByProjectAndStatus();
 
     List<Task> findAllByProject(Project project);//follows derived query naming convention
 
-    List<Task> findAllByTaskStatusIsNotAndAssignedEmployee(Status status, User assignedEmployee);
+    /**
+     * The list pages convert every task into a DTO with its project, manager and employee,
+     * the entity graph fetches them with the tasks instead of one lazy select per row
+     */
+    @Override
+    @EntityGraph("Task.projectAndEmployee")
+    List<Task> findAll();
+
+    //keyed by the employee id of the logged-in user, compared with the assigned_employee_id column
+    @EntityGraph("Task.projectAndEmployee")
+    List<Task> findAllByTaskStatusAndAssignedEmployeeId(Status status, Long assignedEmployeeId);
+
+    //one page of the task table, the count query is run without the joins
+    @Query(value = TASK_SUMMARY, countQuery = "SELECT COUNT(t) FROM Task t")
+    Page<TaskSummaryDTO> findAllSummaries(Pageable pageable);
+
+    //the pending tasks, read from the active partition only
+    @Query(TASK_SUMMARY + " WHERE t.taskStatus <> ?1 AND e.id = ?2 AND t.archived = false")
+    List<TaskSummaryDTO> findAllSummariesByTaskStatusIsNotAndAssignedEmployeeId(Status status, Long assignedEmployeeId);
 
-    List<Task> findAllByTaskStatusAndAssignedEmployee(Status status, User assignedEmployee);
+    //one slice of the pending tasks for the json api, no count query
+    @Query(TASK_SUMMARY + " WHERE t.taskStatus <> ?1 AND e.id = ?2 AND t.archived = false")
+    Slice<TaskSummaryDTO> findAllSummariesByTaskStatusIsNotAndAssignedEmployeeId(Status status, Long assignedEmployeeId,
+                                                                               Pageable pageable);
+
+    /**
+     * Keyset read of the archive, the tasks with a smaller id than the cursor.
+     * The cost of a page does not depend on how deep the employee has scrolled.
+     * Both partitions are read, a task completed recently is still in the active one until it is archived.
+     */
+    @Query(TASK_SUMMARY + " WHERE t.taskStatus = ?1 AND e.id = ?2 AND t.id < ?3")
+    Slice<TaskSummaryDTO> findAllSummariesByTaskStatusAndAssignedEmployeeIdAndIdLessThan(Status status,
+                                                                                         Long assignedEmployeeId,
+                                                                                         Long id, Pageable pageable);
 
     List<Task> findAllByAssignedEmployee(User assignedEmployee);
-}
\ No newline at end of file
+
+    /**
+     * Full-text search of the subject and the detail of the tasks with the GIN index of V9,
+     * the best matches first. The query is written the way a search box is, such as: login -password "reset link".
+     * Only the ids of one slice are selected, the rows are read by findAllSummariesByIdIn().
+     * An empty project code or status matches every project or status.
+     * Postgres only, the search_vector column does not exist in the h2 schema of the tests.
+     * Hibernate reads the bigint ids of a native query as BigInteger on postgres, they are converted by the service.
+     */
+    @Query(value = "SELECT t.id FROM tasks t JOIN projects p ON p.id = t.project_id, " +
+            "websearch_to_tsquery('english', ?1) query " +
+            "WHERE t.search_vector @@ query AND t.is_deleted = false " +
+            "AND (?2 = '' OR p.project_code = ?2) AND (?3 = '' OR t.task_status = ?3) " +
+            "ORDER BY ts_rank(t.search_vector, query) DESC, t.id DESC", nativeQuery = true)
+    Slice<Number> searchIds(String query, String projectCode, String taskStatus, Pageable pageable);
+
+    @Query(TASK_SUMMARY + " WHERE t.id IN ?1")
+    List<TaskSummaryDTO> findAllSummariesByIdIn(Collection<Long> ids);
+
+    /**
+     * The export reads the tasks as a stream, the rows are fetched from the db 500 at a time while
+     * the stream is consumed instead of being loaded into one list. The tasks are read-only,
+     * hibernate keeps no snapshot of them for dirty checking. Must be consumed in a transaction.
+     */
+    @EntityGraph("Task.projectAndEmployee")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Task> streamAllByProjectProjectCodeOrderById(String projectCode);
+
+    @EntityGraph("Task.projectAndEmployee")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Task> streamAllByAssignedEmployeeUserNameOrderById(String userName);
+
+    /**
+     * The id and the status of every task of a project, the rows are locked until the end of the transaction.
+     * The bulk updates below do not pass through the entity listener, the tasks they change are read with it first
+     * and audited by the service, no other transaction can change them in between.
+     */
+    @Query(value = "SELECT id AS id, task_status AS taskStatus FROM tasks " +
+            "WHERE project_id = ?1 AND is_deleted = false FOR UPDATE", nativeQuery = true)
+    List<TaskStatusLookup> findAllStatusesByProjectIdForUpdate(Long projectId);
+
+    /**
+     * Bulk updates of all the tasks of a project with a single statement.
+     * A bulk update skips the BaseEntityListener and the @Where clause of the entity,
+     * so the audit columns are set in the query and the deleted tasks are excluded explicitly.
+     * The pending changes are flushed before, and the persistence context is cleared after the update,
+     * so no stale task is read from it afterwards.
+     * The version is incremented, so a form opened before the update cannot overwrite it.
+     * @return the number of soft deleted tasks
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.isDeleted = true, t.version = t.version + 1, t.lastUpdateDateTime = ?2, t.lastUpdateUserId = ?3 " +
+            "WHERE t.project.id = ?1 AND t.isDeleted = false")
+    int softDeleteAllByProjectId(Long projectId, LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    /**
+     * Bulk update of the status of all the tasks of a project, the same way as softDeleteAllByProjectId().
+     * The tasks already in the status are not changed, their version is kept.
+     * @return the number of tasks whose status is changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.taskStatus = ?2, t.version = t.version + 1, t.lastUpdateDateTime = ?3, t.lastUpdateUserId = ?4 " +
+            "WHERE t.project.id = ?1 AND t.isDeleted = false AND t.taskStatus <> ?2")
+    int updateStatusByProjectId(Long projectId, Status taskStatus, LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    /**
+     * Conditional update of the status of one task, without reading the task first.
+     * It is applied only if the task still has the version, the project and the status it was loaded with,
+     * the version alone is enough to detect a concurrent change, the project and the status
+     * make sure the task counters are moved with the values of the row, not with the values of a form.
+     * A task whose status changes goes back to the active partition, the archive job moves it again once it is complete.
+     * @return 1 if the task is updated, 0 if it was changed or deleted in the meantime
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.taskStatus = ?5, t.version = t.version + 1, " +
+            "t.archived = CASE WHEN t.taskStatus = ?5 THEN t.archived ELSE false END, " +
+            "t.lastUpdateDateTime = ?6, t.lastUpdateUserId = ?7 WHERE t.id = ?1 AND t.version = ?2 AND t.project.id = ?3 AND t.taskStatus = ?4 AND t.isDeleted = false")
+    int updateStatus(Long id, Long version, Long projectId, Status previousStatus, Status taskStatus,
+                     LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    /**
+     * Moves a batch of the completed and deleted tasks that were not changed since the given time
+     * to the archive partition. Native, the deleted tasks are hidden from the JPQL queries by @Where.
+     * The version is not incremented, the tasks are not changed and an open form of them stays valid.
+     * @return the number of archived tasks, less than the limit when nothing is left
+     */
+    @Modifying
+    @Query(value = "UPDATE tasks SET archived = true WHERE id IN (SELECT id FROM tasks WHERE archived = false " +
+            "AND (is_deleted = true OR task_status = 'COMPLETE') AND last_update_date_time < ?1 LIMIT ?2)",
+            nativeQuery = true)
+    int archiveBatch(LocalDateTime lastUpdatedBefore, int limit);
+
+    /**
+     * The ids of a chunk of the tasks soft deleted before the given time, for the purge.
+     * Native, the deleted tasks are hidden from the JPQL queries by @Where.
+     */
+    @Query(value = "SELECT id FROM tasks WHERE is_deleted = true AND last_update_date_time < ?1 LIMIT ?2",
+            nativeQuery = true)
+    List<Long> findPurgeableIds(LocalDateTime deletedBefore, int limit);
+
+    //hard delete, the rows are removed from the table
+    @Modifying
+    @Query(value = "DELETE FROM tasks WHERE id IN ?1", nativeQuery = true)
+    int purgeAllByIdIn(Collection<Long> ids);
+}
@@ -1,9 +1,20 @@
 package com.cydeo.repository;
 
+import com.cydeo.dto.UserOptionDTO;
+import com.cydeo.dto.UserSummaryDTO;
 import com.cydeo.entity.User;
+import com.cydeo.projection.UserLookup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -21,5 +32,41 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Transactional
     void deleteByUserName(String username);
 
-    List<User> findAllByRoleDescriptionIgnoreCase(String description);
+    //the eager role is joined in the same select instead of a select per role
+    @Override
+    @EntityGraph(attributePaths = "role")
+    List<User> findAll(Sort sort);
+
+    //one page of the user table, the role is joined for the description only
+    @Query(value = "SELECT new com.cydeo.dto.UserSummaryDTO(u.firstName, u.lastName, u.userName, u.gender, u.phone, " +
+            "r.description) FROM User u LEFT JOIN u.role r", countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserSummaryDTO> findAllSummaries(Pageable pageable);
+
+    /**
+     * The users of a role whose username or full name contains the pattern, for the lookups of the forms.
+     * The pattern is lower case with the wildcards escaped, the pageable limits the number of users,
+     * the trigram indexes of V10 serve both LIKE comparisons.
+     */
+    @Query("SELECT new com.cydeo.dto.UserOptionDTO(u.userName, u.firstName, u.lastName) FROM User u JOIN u.role r " +
+            "WHERE LOWER(r.description) = LOWER(?1) AND (LOWER(u.userName) LIKE ?2 ESCAPE '\\' " +
+            "OR LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE ?2 ESCAPE '\\') ORDER BY u.firstName, u.lastName")
+    List<UserOptionDTO> lookup(String role, String pattern, Pageable pageable);
+
+    //only the id, the username and the role of every user, the import resolves the usernames with it
+    @Query("SELECT u.id AS id, u.userName AS userName, r.description AS roleDescription FROM User u LEFT JOIN u.role r")
+    List<UserLookup> findAllLookups();
+
+    /**
+     * The ids of a chunk of the users soft deleted before the given time, for the purge.
+     * A user is kept as long as a project or a task, deleted or not, still refers to it.
+     */
+    @Query(value = "SELECT u.id FROM users u WHERE u.is_deleted = true AND u.last_update_date_time < ?1 " +
+            "AND NOT EXISTS (SELECT 1 FROM projects p WHERE p.manager_id = u.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM tasks t WHERE t.assigned_employee_id = u.id) LIMIT ?2", nativeQuery = true)
+    List<Long> findPurgeableIds(LocalDateTime deletedBefore, int limit);
+
+    //hard delete, the rows are removed from the table
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE id IN ?1", nativeQuery = true)
+    int purgeAllByIdIn(Collection<Long> ids);
 }
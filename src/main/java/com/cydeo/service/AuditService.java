@@ -0,0 +1,10 @@
+package com.cydeo.service;
+
+import com.cydeo.entity.AuditLog;
+
+public interface AuditService {
+
+    void record(AuditLog auditLog);
+
+    void flush();
+}
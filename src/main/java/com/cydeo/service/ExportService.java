@@ -0,0 +1,19 @@
+package com.cydeo.service;
+
+import com.cydeo.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes tasks or projects as CSV or JSON into an output stream, row by row while they are read from the db.
+ * The task columns match the columns of the task import.
+ */
+public interface ExportService {
+
+    void exportTasksByProject(String projectCode, ExportFormat format, OutputStream outputStream) throws IOException;
+
+    void exportTasksByEmployee(String userName, ExportFormat format, OutputStream outputStream) throws IOException;
+
+    void exportProjects(ExportFormat format, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,16 @@
+package com.cydeo.service;
+
+import com.cydeo.dto.ImportResult;
+import com.cydeo.enums.ImportFormat;
+import com.cydeo.enums.ImportType;
+
+import java.io.InputStream;
+
+/**
+ * Imports users, projects or tasks from an uploaded CSV or JSON file.
+ * The rows are read one by one and saved in chunks, the file is never held in memory.
+ */
+public interface ImportService {
+
+    ImportResult importRecords(ImportType type, ImportFormat format, InputStream inputStream);
+}
@@ -1,7 +1,11 @@
 package com.cydeo.service;
 
 import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.ProjectOptionDTO;
+import com.cydeo.dto.ProjectSummaryDTO;
 import com.cydeo.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -9,11 +13,13 @@ public interface ProjectService {
 
     ProjectDTO getByProjectCode(String code);
     List<ProjectDTO> listAllProjects();
+    List<ProjectOptionDTO> listAllProjectOptions();
     void save(ProjectDTO dto);
     void update(ProjectDTO dto);
     void delete(String code);
     void complete(String projectCode);
     List<ProjectDTO> listAllProjectDetails();
+    Page<ProjectSummaryDTO> listAllProjectDetails(Pageable pageable);
 
     List<ProjectDTO> listAllByAssignedManager(User assignedManager);
 }
@@ -0,0 +1,27 @@
+package com.cydeo.service;
+
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Task;
+import com.cydeo.enums.Status;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProjectTaskCounterService {
+
+    void createCounter(Long projectId);
+
+    void add(Long projectId, Status status, int count);
+
+    void move(Long fromProjectId, Status fromStatus, Long toProjectId, Status toStatus);
+
+    void addAll(Collection<Task> tasks);
+
+    void completeAll(Long projectId);
+
+    void resetCounts(Long projectId);
+
+    List<ProjectTaskCounter> findAllByProjectIds(Collection<Long> projectIds);
+
+    int reconcile();
+}
@@ -0,0 +1,10 @@
+package com.cydeo.service;
+
+/**
+ * Hard deletes the tasks, projects and users that were soft deleted longer ago than the retention period,
+ * so the dead rows do not stay in the tables and in their unique indexes forever.
+ */
+public interface PurgeService {
+
+    int purge();
+}
@@ -1,5 +1,6 @@
 package com.cydeo.service;
 
+import com.cydeo.entity.common.UserPrincipal;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 /**
@@ -8,6 +9,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
  * the user in the UI
  * The SecurityServiceImpl Overrides to implement the
  * loadUserByUsername() method
+ * getLoggedInUser() gives the services the id and the role of the logged-in user
+ * without fetching the user from the db again
  */
 public interface SecurityService extends UserDetailsService {
+
+    UserPrincipal getLoggedInUser();
 }
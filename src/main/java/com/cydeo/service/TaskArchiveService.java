@@ -0,0 +1,10 @@
+package com.cydeo.service;
+
+/**
+ * Moves the completed and the soft deleted tasks out of the active partition of the tasks table,
+ * so the pending task queries keep reading a small set of rows no matter how many tasks are stored.
+ */
+public interface TaskArchiveService {
+
+    int archive();
+}
@@ -1,9 +1,14 @@
 package com.cydeo.service;
 
 import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskCounts;
 import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.TaskSummaryDTO;
 import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -11,20 +16,26 @@ public interface TaskService {
 
     TaskDTO findById(Long id); //to find a task by id
     List<TaskDTO> findAllTasks();
+    Page<TaskSummaryDTO> findAllTasks(Pageable pageable);
     void save(TaskDTO dto);
     void update(TaskDTO dto);
     void delete(Long id);
-    int totalUncompletedTasks(String projectCode);
-    int totalCompletedTasks(String projectCode);
+    void assignTaskCounts(List<? extends TaskCounts> projects);
 
     void deleteByProject(ProjectDTO convertToDTO);
 
     void completeByProject(ProjectDTO convertToDTO);
 
-    List<TaskDTO> listAllTasksByStatusIsNot(Status complete);
+    List<TaskSummaryDTO> listAllTasksByStatusIsNot(Status complete);
+
+    Slice<TaskSummaryDTO> listAllTasksByStatusIsNot(Status status, int page, int size);
 
     List<TaskDTO> listAllTasksByStatus(Status complete);
 
+    Slice<TaskSummaryDTO> listAllTasksByStatus(Status status, Long before, int size);
+
+    Slice<TaskSummaryDTO> search(String query, String projectCode, Status status, Pageable pageable);
+
     void updateStatus(TaskDTO task);
 
     List<TaskDTO> listAllTasksByAssignedEmployee(User assignedEmployee);
@@ -1,6 +1,10 @@
 package com.cydeo.service;
 
 import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserOptionDTO;
+import com.cydeo.dto.UserSummaryDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -8,10 +12,11 @@ public interface UserService {
 
     //on the service layer always return DTOs
     List<UserDTO> listAllUsers();//returns list of users
+    Page<UserSummaryDTO> listAllUsers(Pageable pageable);//returns one page of the user table rows
     UserDTO findByUserName(String username);
     void save(UserDTO userDTO);//to save the new user
     UserDTO update(UserDTO userDTO);//to update the new user
     void delete(String username);//to delete the new user
     void deleteByUserName(String username);//to delete the new user
-    List<UserDTO> listAllByRole(String role);//returns list of user from which can filter list of managers, etc
+    List<UserOptionDTO> lookup(String role, String term, int limit);//the first users of a role matching the typed text
 }
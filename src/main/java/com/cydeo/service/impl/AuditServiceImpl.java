@@ -0,0 +1,184 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.entity.AuditLog;
+import com.cydeo.repository.AuditLogRepository;
+import com.cydeo.service.AuditService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit log without making the requests wait for it.
+ * The BaseEntityListener records the changes while hibernate flushes them,
+ * they are collected for the transaction and handed to a bounded queue only after the commit,
+ * so the changes of a rolled back transaction are not logged.
+ * A background thread takes the entries from the queue and inserts them in batches, one transaction per batch.
+ * When the writer falls behind and the queue is full, the committing request waits at most
+ * audit.offer-timeout-ms for free space, then the entries that do not fit are dropped and counted,
+ * the request is never slowed down more than that.
+ * Metrics: audit.queue.size, audit.records.written, audit.records.dropped (by reason) and audit.flush.
+ */
+@Slf4j
+@Service
+public class AuditServiceImpl implements AuditService {
+
+    //how long the writer waits for a new entry before it checks whether it is stopped
+    private static final long POLL_TIMEOUT_MS = 1000;
+
+    private final AuditLogRepository auditLogRepository;
+    private final BlockingQueue<AuditLog> queue;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+
+    private final Counter writtenCounter;
+    private final Counter queueFullCounter;
+    private final Counter writeFailedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditServiceImpl(AuditLogRepository auditLogRepository, MeterRegistry meterRegistry,
+                            @Value("${audit.queue-capacity}") int queueCapacity,
+                            @Value("${audit.batch-size}") int batchSize,
+                            @Value("${audit.offer-timeout-ms}") long offerTimeoutMs) {
+        this.auditLogRepository = auditLogRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        meterRegistry.gauge("audit.queue.size", queue, BlockingQueue::size);
+        this.writtenCounter = meterRegistry.counter("audit.records.written");
+        this.queueFullCounter = meterRegistry.counter("audit.records.dropped", "reason", "queue_full");
+        this.writeFailedCounter = meterRegistry.counter("audit.records.dropped", "reason", "write_failed");
+        this.flushTimer = meterRegistry.timer("audit.flush");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //the writer is not interrupted in the middle of a batch, it stops at its next poll,
+    //then the entries left in the queue are written before the repository is closed
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(2 * POLL_TIMEOUT_MS);
+        }
+        flush();
+    }
+
+    /**
+     * This method records an entry of the audit log. Inside a transaction the entries are kept
+     * until the transaction is committed and dropped when it is rolled back,
+     * outside a transaction the entry is queued right away.
+     * @param auditLog AuditLog
+     */
+    @Override
+    public void record(AuditLog auditLog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(Collections.singletonList(auditLog));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<AuditLog> pending = (List<AuditLog>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<AuditLog> transactionEntries = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionEntries);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AuditServiceImpl.this);
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(transactionEntries);
+                    }
+                }
+            });
+            pending = transactionEntries;
+        }
+        pending.add(auditLog);
+    }
+
+    /**
+     * This method writes every queued entry on the calling thread,
+     * it is used at shutdown and by the tests
+     */
+    @Override
+    public void flush() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    //the entries wait for free space together, not one timeout per entry
+    private void enqueue(List<AuditLog> entries) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        for (int i = 0; i < entries.size(); i++) {
+            boolean queued;
+            try {
+                queued = queue.offer(entries.get(i), Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                int dropped = entries.size() - i;
+                queueFullCounter.increment(dropped);
+                log.warn("Audit queue is full, {} audit log entries dropped", dropped);
+                return;
+            }
+        }
+    }
+
+    //takes what is in the queue, up to a batch, as soon as there is at least one entry
+    private void writeLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditLog first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    //saveAll runs in one transaction, hibernate sends the inserts in jdbc batches
+    private void write(List<AuditLog> batch) {
+        try {
+            flushTimer.record(() -> auditLogRepository.saveAll(batch));
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            writeFailedCounter.increment(batch.size());
+            log.error("{} audit log entries could not be written", batch.size(), e);
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.entity.AuditLog;
 import com.cydeo.entity.common.BaseEntity;
 import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.AuditAction;
+import com.cydeo.service.AuditService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * Base entities do not extend from other classes
@@ -18,9 +25,27 @@ import java.time.LocalDateTime;
  * This class is designed to capture the user id of the role who is making
  * the changes/updates in the UI. It listens then captures when the base entity id is used.
  * Therefore, the BaseEntity has to be annotated with the @EntityListeners(BaseEntityListener.class)
+ * It also records the history of the audited entities (see BaseEntity.auditedValues()) in the audit log:
+ * the inserted rows and every changed field with its old and new value.
+ * The entries are only handed to the AuditService, they are written later by its background thread.
+ * The bulk updates of the repositories, such as completing the tasks of a project, do not pass through here,
+ * TaskServiceImpl records the tasks they change itself.
  */
 @Component
 public class BaseEntityListener extends AuditingEntityListener {
+
+    //not available in the tests that do not import it, then nothing is audited
+    private final ObjectProvider<AuditService> auditService;
+
+    public BaseEntityListener(ObjectProvider<AuditService> auditService) {
+        this.auditService = auditService;
+    }
+
+    //the loaded values are the old values of the next update
+    @PostLoad
+    public void onPostLoad(BaseEntity baseEntity) {
+        baseEntity.rememberAuditedValues();
+    }
     /**
      * For every action in the database this method will be executed to
      * record the user id with date and time
@@ -45,6 +70,15 @@ public class BaseEntityListener extends AuditingEntityListener {
         }
     }
 
+    //the id is generated after @PrePersist, so the insert is recorded once the entity has it
+    @PostPersist
+    public void onPostPersist(BaseEntity baseEntity) {
+        baseEntity.rememberAuditedValues();
+        if (!baseEntity.auditedValues().isEmpty()) {
+            record(baseEntity, AuditAction.INSERT, null, null, null);
+        }
+    }
+
     /**
      * For update in the database this method will be executed to
      * record the user id with date and time
@@ -64,5 +98,16 @@ public class BaseEntityListener extends AuditingEntityListener {
             Object principal = authentication.getPrincipal();
             baseEntity.lastUpdateUserId = ((UserPrincipal) principal).getId();
         }
+
+        //one entry for every audited field that changed since the entity was loaded
+        for (Map.Entry<String, Object[]> change : baseEntity.auditedChanges().entrySet()) {
+            record(baseEntity, AuditAction.UPDATE, change.getKey(), change.getValue()[0], change.getValue()[1]);
+        }
+    }
+
+    private void record(BaseEntity baseEntity, AuditAction action, String field, Object oldValue, Object newValue) {
+        auditService.ifAvailable(service -> service.record(new AuditLog(baseEntity.getClass().getSimpleName(),
+                baseEntity.getId(), action, field, oldValue, newValue, baseEntity.getLastUpdateUserId(),
+                baseEntity.getLastUpdateDateTime())));
     }
 }
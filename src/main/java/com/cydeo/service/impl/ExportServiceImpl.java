@@ -0,0 +1,142 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Task;
+import com.cydeo.enums.ExportFormat;
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.service.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * This service exports tasks and projects without loading them all into memory.
+ * The repositories return streams that fetch the rows from the db in small portions,
+ * every entity is converted into a row, written into the output stream, then detached
+ * from the persistence context, so the heap use is the same for a thousand or millions of rows.
+ * The streams are open as long as the transaction, so every export runs in a read-only transaction.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    //the task columns are the columns of the task import, an exported file can be imported again
+    private static final List<String> TASK_COLUMNS = Arrays.asList("id", "projectCode", "projectName", "employee",
+            "taskSubject", "taskDetail", "taskStatus", "assignedDate");
+    private static final List<String> PROJECT_COLUMNS = Arrays.asList("id", "projectCode", "projectName", "manager",
+            "startDate", "endDate", "projectDetail", "projectStatus");
+
+    private final TaskRepository taskRepository;
+    private final ProjectRepository projectRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public ExportServiceImpl(TaskRepository taskRepository, ProjectRepository projectRepository,
+                             ObjectMapper objectMapper, EntityManager entityManager) {
+        this.taskRepository = taskRepository;
+        this.projectRepository = projectRepository;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTasksByProject(String projectCode, ExportFormat format, OutputStream outputStream) throws IOException {
+        export(taskRepository.streamAllByProjectProjectCodeOrderById(projectCode), TASK_COLUMNS, this::taskRow,
+                format, outputStream);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTasksByEmployee(String userName, ExportFormat format, OutputStream outputStream) throws IOException {
+        export(taskRepository.streamAllByAssignedEmployeeUserNameOrderById(userName), TASK_COLUMNS, this::taskRow,
+                format, outputStream);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProjects(ExportFormat format, OutputStream outputStream) throws IOException {
+        export(projectRepository.streamAllByOrderByProjectCode(), PROJECT_COLUMNS, this::projectRow,
+                format, outputStream);
+    }
+
+    private <T> void export(Stream<T> entities, List<String> columns, Function<T, Map<String, Object>> toRow,
+                            ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<T> stream = entities; SequenceWriter writer = writer(format, columns, outputStream)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                T entity = iterator.next();
+                writer.write(toRow.apply(entity));
+                entityManager.detach(entity);//the written entity is not kept in the persistence context
+            }
+        }
+    }
+
+    /**
+     * A CSV file starts with a header line of the columns, a JSON file is an array of objects.
+     * The writer does not close the output stream, it belongs to the caller.
+     */
+    private SequenceWriter writer(ExportFormat format, List<String> columns, OutputStream outputStream) throws IOException {
+        if (format == ExportFormat.JSON) {
+            return objectMapper.writerFor(ROW_TYPE).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValuesAsArray(outputStream);
+        }
+        CsvSchema.Builder schema = CsvSchema.builder().setUseHeader(true);
+        columns.forEach(schema::addColumn);
+        ObjectWriter csvWriter = CSV_MAPPER.writerFor(ROW_TYPE).with(schema.build())
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return csvWriter.writeValues(outputStream);
+    }
+
+    private Map<String, Object> taskRow(Task task) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", task.getId());
+        row.put("projectCode", task.getProject().getProjectCode());
+        row.put("projectName", task.getProject().getProjectName());
+        row.put("employee", task.getAssignedEmployee().getUserName());
+        row.put("taskSubject", task.getTaskSubject());
+        row.put("taskDetail", task.getTaskDetail());
+        row.put("taskStatus", task.getTaskStatus());
+        row.put("assignedDate", text(task.getAssignedDate()));
+        return row;
+    }
+
+    private Map<String, Object> projectRow(Project project) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", project.getId());
+        row.put("projectCode", project.getProjectCode());
+        row.put("projectName", project.getProjectName());
+        row.put("manager", project.getAssignedManager().getUserName());
+        row.put("startDate", text(project.getStartDate()));
+        row.put("endDate", text(project.getEndDate()));
+        row.put("projectDetail", project.getProjectDetail());
+        row.put("projectStatus", project.getProjectStatus());
+        return row;
+    }
+
+    //the dates are written as yyyy-MM-dd in both formats
+    private String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,378 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ImportResult;
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.BaseEntity;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.ImportFormat;
+import com.cydeo.enums.ImportType;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.projection.ProjectLookup;
+import com.cydeo.projection.UserLookup;
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.ImportService;
+import com.cydeo.service.ProjectTaskCounterService;
+import com.cydeo.service.RoleService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This service imports the users, projects or tasks of an uploaded CSV or JSON file.
+ * The rows are read one at a time, so the size of the file does not matter.
+ * Every row is converted into a DTO, validated with the same constraints as the UI forms,
+ * then converted into an entity. The usernames, project codes and roles of the rows are
+ * resolved with lookup tables read once at the beginning, not with a query per row.
+ * The entities are saved in chunks, every chunk in its own transaction with batched inserts,
+ * and the persistence context is cleared after every chunk.
+ * A rejected row does not stop the import, it is reported in the ImportResult.
+ */
+@Slf4j
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final RoleService roleService;
+    private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+    private final UserMapper userMapper;
+    private final ProjectMapper projectMapper;
+    private final TaskMapper taskMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final ProjectTaskCounterService taskCounterService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ImportServiceImpl(RoleService roleService, UserRepository userRepository,
+                             ProjectRepository projectRepository, UserMapper userMapper,
+                             ProjectMapper projectMapper, TaskMapper taskMapper,
+                             PasswordEncoder passwordEncoder, ProjectTaskCounterService taskCounterService,
+                             Validator validator, ObjectMapper objectMapper,
+                             EntityManager entityManager, PlatformTransactionManager transactionManager,
+                             @Value("${import.chunk-size:500}") int chunkSize) {
+        this.roleService = roleService;
+        this.userRepository = userRepository;
+        this.projectRepository = projectRepository;
+        this.userMapper = userMapper;
+        this.projectMapper = projectMapper;
+        this.taskMapper = taskMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.taskCounterService = taskCounterService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public ImportResult importRecords(ImportType type, ImportFormat format, InputStream inputStream) {
+        switch (type) {
+            case USERS:
+                return importRows(type, format, inputStream, userRows());
+            case PROJECTS:
+                return importRows(type, format, inputStream, projectRows());
+            default:
+                return importRows(type, format, inputStream, taskRows());
+        }
+    }
+
+    /**
+     * Columns: firstName, lastName, userName, passWord, phone, gender, role, enabled(optional, true by default)
+     * A username may not exist already, neither in the db nor in a previous row.
+     */
+    private Function<Map<String, String>, BaseEntity> userRows() {
+        Map<String, RoleDTO> roles = roleService.listAllRoles().stream()
+                .collect(Collectors.toMap(role -> role.getDescription().toLowerCase(), Function.identity()));
+        Set<String> userNames = userRepository.findAllLookups().stream()
+                .map(UserLookup::getUserName).collect(Collectors.toCollection(HashSet::new));
+
+        return row -> {
+            UserDTO user = new UserDTO();
+            user.setFirstName(row.get("firstName"));
+            user.setLastName(row.get("lastName"));
+            user.setUserName(row.get("userName"));
+            user.setPassWord(row.get("passWord"));
+            user.setConfirmPassWord(row.get("passWord"));
+            user.setPhone(row.get("phone"));
+            user.setGender(enumValue(Gender.class, row.get("gender"), "gender"));
+            user.setRole(row.get("role") == null ? null : lookup(roles, row.get("role").toLowerCase(), "role"));
+            user.setEnabled(row.get("enabled") == null || Boolean.parseBoolean(row.get("enabled")));
+            validate(user);
+            if (!userNames.add(user.getUserName())) {
+                throw new IllegalArgumentException("user " + user.getUserName() + " already exists");
+            }
+            User entity = userMapper.convertToEntity(user);
+            entity.setPassWord(passwordEncoder.encode(entity.getPassWord()));
+            return entity;
+        };
+    }
+
+    /**
+     * Columns: projectCode, projectName, manager(username of a Manager), startDate, endDate, projectDetail
+     * The project code and the name may not exist already.
+     */
+    private Function<Map<String, String>, BaseEntity> projectRows() {
+        Map<String, UserLookup> users = userLookups();
+        Set<String> codes = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        projectRepository.findAllLookups().forEach(project -> {
+            codes.add(project.getProjectCode());
+            names.add(project.getProjectName());
+        });
+
+        return row -> {
+            ProjectDTO project = new ProjectDTO();
+            project.setProjectCode(row.get("projectCode"));
+            project.setProjectName(row.get("projectName"));
+            project.setAssignedManager(user(users, row.get("manager"), "Manager"));
+            project.setStartDate(date(row.get("startDate"), "start date"));
+            project.setEndDate(date(row.get("endDate"), "end date"));
+            project.setProjectDetail(row.get("projectDetail"));
+            project.setProjectStatus(Status.OPEN);//a new project is always open
+            validate(project);
+            if (codes.contains(project.getProjectCode())) {
+                throw new IllegalArgumentException("project code " + project.getProjectCode() + " already exists");
+            }
+            if (!names.add(project.getProjectName())) {
+                throw new IllegalArgumentException("project name " + project.getProjectName() + " already exists");
+            }
+            codes.add(project.getProjectCode());
+            return projectMapper.convertToEntity(project);
+        };
+    }
+
+    /**
+     * Columns: projectCode, employee(username of an Employee), taskSubject, taskDetail,
+     * taskStatus(optional, OPEN by default), assignedDate(optional, today by default)
+     */
+    private Function<Map<String, String>, BaseEntity> taskRows() {
+        Map<String, UserLookup> users = userLookups();
+        Map<String, Long> projects = projectRepository.findAllLookups().stream()
+                .filter(project -> !Boolean.TRUE.equals(project.getIsDeleted()))
+                .collect(Collectors.toMap(ProjectLookup::getProjectCode, ProjectLookup::getId));
+
+        return row -> {
+            TaskDTO task = new TaskDTO();
+            String projectCode = row.get("projectCode");
+            if (projectCode != null) {
+                ProjectDTO project = new ProjectDTO();
+                project.setId(lookup(projects, projectCode, "project"));
+                project.setProjectCode(projectCode);
+                task.setProject(project);
+            }
+            task.setAssignedEmployee(user(users, row.get("employee"), "Employee"));
+            task.setTaskSubject(row.get("taskSubject"));
+            task.setTaskDetail(row.get("taskDetail"));
+            Status status = enumValue(Status.class, row.get("taskStatus"), "task status");
+            task.setTaskStatus(status == null ? Status.OPEN : status);
+            LocalDate assignedDate = date(row.get("assignedDate"), "assigned date");
+            task.setAssignedDate(assignedDate == null ? LocalDate.now() : assignedDate);
+            validate(task);
+            return taskMapper.convertToEntity(task);
+        };
+    }
+
+    /**
+     * Reads the rows one by one, converts them and saves them chunk by chunk.
+     * A malformed file stops the import, the rows read before the malformed part are still saved.
+     * A chunk that cannot be saved is rolled back and stops the import, the chunks before it stay saved.
+     */
+    private ImportResult importRows(ImportType type, ImportFormat format, InputStream inputStream,
+                                    Function<Map<String, String>, BaseEntity> rowConverter) {
+        ImportResult result = new ImportResult(type);
+        long start = System.currentTimeMillis();
+        List<BaseEntity> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<Map<String, Object>> rows = readRows(format, inputStream)) {
+            while (rows.hasNextValue()) {
+                Map<String, String> row = normalize(rows.nextValue());
+                result.setRowsRead(result.getRowsRead() + 1);
+                try {
+                    chunk.add(rowConverter.apply(row));
+                } catch (IllegalArgumentException e) {
+                    result.reject(result.getRowsRead(), e.getMessage());
+                }
+                if (chunk.size() == chunkSize && !saveChunk(chunk, result, start)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            result.setFailure("The file could not be read after row " + result.getRowsRead() + ": " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, result, start);
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Import of {} finished: {} rows read, {} imported, {} rejected in {} ms, {} rows/s",
+                type.getValue(), result.getRowsRead(), result.getImported(), result.getRejected(),
+                result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Saves a chunk in one transaction. The inserts are sent in jdbc batches,
+     * then the persistence context is cleared, so the memory use does not grow with the file.
+     * @return false if the chunk could not be saved
+     */
+    private boolean saveChunk(List<BaseEntity> chunk, ImportResult result, long start) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chunk.forEach(entityManager::persist);
+                entityManager.flush();
+                updateTaskCounters(chunk);
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            result.setFailure("A chunk of " + chunk.size() + " rows could not be saved after " + result.getImported()
+                    + " imported rows: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            chunk.clear();
+            return false;
+        }
+        result.setImported(result.getImported() + chunk.size());
+        chunk.clear();
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Import of {}: {} rows read, {} imported, {} rejected, {} rows/s", result.getType().getValue(),
+                result.getRowsRead(), result.getImported(), result.getRejected(), result.getRowsPerSecond());
+        return true;
+    }
+
+    //the imported projects get their counters, the imported tasks are added to the counters of their projects
+    private void updateTaskCounters(List<BaseEntity> chunk) {
+        List<Task> tasks = new ArrayList<>();
+        for (BaseEntity entity : chunk) {
+            if (entity instanceof Project) {
+                taskCounterService.createCounter(entity.getId());
+            } else if (entity instanceof Task) {
+                tasks.add((Task) entity);
+            }
+        }
+        if (!tasks.isEmpty()) {
+            taskCounterService.addAll(tasks);
+        }
+    }
+
+    private MappingIterator<Map<String, Object>> readRows(ImportFormat format, InputStream inputStream) throws IOException {
+        if (format == ImportFormat.JSON) {
+            //an array of objects, the reader returns its elements one at a time
+            return objectMapper.readerFor(ROW_TYPE).readValues(inputStream);
+        }
+        //the first line of the csv file holds the column names
+        return CSV_MAPPER.readerFor(ROW_TYPE).with(CsvSchema.emptySchema().withHeader()).readValues(inputStream);
+    }
+
+    //every value is handled as a trimmed text, an empty value is a missing value
+    private Map<String, String> normalize(Map<String, Object> row) {
+        Map<String, String> values = new HashMap<>();
+        row.forEach((key, value) -> {
+            String text = value == null ? "" : value.toString().trim();
+            if (!text.isEmpty()) {
+                values.put(key.trim(), text);
+            }
+        });
+        return values;
+    }
+
+    private Map<String, UserLookup> userLookups() {
+        return userRepository.findAllLookups().stream()
+                .collect(Collectors.toMap(UserLookup::getUserName, Function.identity()));
+    }
+
+    //the id and the username are enough for the mapper to set the foreign key
+    private UserDTO user(Map<String, UserLookup> users, String userName, String role) {
+        if (userName == null) {
+            return null;
+        }
+        UserLookup lookup = lookup(users, userName, "user");
+        if (!role.equals(lookup.getRoleDescription())) {
+            throw new IllegalArgumentException("user " + userName + " is not a " + role);
+        }
+        UserDTO user = new UserDTO();
+        user.setId(lookup.getId());
+        user.setUserName(userName);
+        return user;
+    }
+
+    private <T> T lookup(Map<String, T> values, String key, String name) {
+        T value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("unknown " + name + " " + key);
+        }
+        return value;
+    }
+
+    private <E extends Enum<E>> E enumValue(Class<E> type, String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase().replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid " + name + " " + value);
+        }
+    }
+
+    private LocalDate date(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid " + name + " " + value + ", expected yyyy-MM-dd");
+        }
+    }
+
+    //the same constraints as the UI forms, all the violations of the row are reported together
+    private <T> void validate(T dto) {
+        Set<ConstraintViolation<T>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+}
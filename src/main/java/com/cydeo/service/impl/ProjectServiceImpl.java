@@ -1,39 +1,49 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.config.MetricsConfig;
 import com.cydeo.dto.ProjectDTO;
-import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.ProjectOptionDTO;
+import com.cydeo.dto.ProjectSummaryDTO;
 import com.cydeo.entity.Project;
 import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
 import com.cydeo.mapper.ProjectMapper;
-import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.ProjectRepository;
 import com.cydeo.service.ProjectService;
+import com.cydeo.service.ProjectTaskCounterService;
+import com.cydeo.service.SecurityService;
 import com.cydeo.service.TaskService;
-import com.cydeo.service.UserService;
-import org.springframework.security.core.context.SecurityContextHolder;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+//every method runs in a read-only transaction unless it is annotated as a write,
+//hibernate does not flush or dirty check it and the jdbc connection is marked read-only
+@Transactional(readOnly = true)
 public class ProjectServiceImpl implements ProjectService {
 
     private final ProjectRepository projectRepository;//to fetch projects from the database
     private final ProjectMapper projectMapper;//used to convert the fetched projects into DTOs
-    private final UserService userService;//to use it methods from the UserService in Project Status
-    private final UserMapper userMapper;
+    private final SecurityService securityService;//to get the logged-in manager in Project Status
     private final TaskService taskService;
+    private final ProjectTaskCounterService taskCounterService;
     public ProjectServiceImpl(ProjectRepository projectRepository,
-                              ProjectMapper projectMapper, UserService userService,
-                              UserMapper userMapper,TaskService taskService) {
+                              ProjectMapper projectMapper, SecurityService securityService,
+                              TaskService taskService, ProjectTaskCounterService taskCounterService) {
         this.projectRepository = projectRepository;
         this.projectMapper = projectMapper;
-        this.userService = userService;
-        this.userMapper = userMapper;
+        this.securityService = securityService;
         this.taskService = taskService;
+        this.taskCounterService = taskCounterService;
     }
 
     /**
@@ -68,6 +78,16 @@ public class ProjectServiceImpl implements ProjectService {
         return projectList.stream().map(projectMapper::convertToDTO).collect(Collectors.toList());
     }
 
+    /**
+     * This method returns the code and the name of every project for the project filter of the task search.
+     * Only the two columns are read, the projects are not loaded with their managers and mapped to DTOs.
+     * @return list of ProjectOptionDTOs ordered by code
+     */
+    @Override
+    public List<ProjectOptionDTO> listAllProjectOptions() {
+        return projectRepository.findAllOptions();
+    }
+
     /**
      * This method grab user's UI entry and saves the data into the database. How?
      * database interacts only with the entity objects,
@@ -78,12 +98,15 @@ public class ProjectServiceImpl implements ProjectService {
      * @param dto ProjectDTO object
      */
     @Override
+    @Transactional
     public void save(ProjectDTO dto) {
         //when a project is created, the status must be set to open
         dto.setProjectStatus(Status.OPEN);
         //convert the project into entity, then save them
         Project project = projectMapper.convertToEntity(dto);
         projectRepository.save(project);
+        //a new project starts with zero task counts
+        taskCounterService.createCounter(project.getId());
     }
 
     /**
@@ -92,15 +115,22 @@ public class ProjectServiceImpl implements ProjectService {
      * Second convert the DTO captured into entity in order to update it in the db
      * Third the converted project to the existing id and status to avoid new creating
      * Fourth save it in the database using the repository
+     * A form opened before the last change of the project is rejected, the fields of the form are set
+     * on the loaded project and written with its version, the code and the status are kept
      * @param dto ProjectDTO
+     * @throws ObjectOptimisticLockingFailureException if the project was changed by someone else
      */
     @Override
+    @Transactional
     public void update(ProjectDTO dto) {
         Project project = projectRepository.findByProjectCode(dto.getProjectCode());
+        project.checkVersion(dto.getVersion());
         Project convertedProject = projectMapper.convertToEntity(dto);
-        convertedProject.setId(project.getId());
-        convertedProject.setProjectStatus(project.getProjectStatus());
-        projectRepository.save(convertedProject);
+        project.setProjectName(convertedProject.getProjectName());
+        project.setAssignedManager(convertedProject.getAssignedManager());
+        project.setStartDate(convertedProject.getStartDate());
+        project.setEndDate(convertedProject.getEndDate());
+        project.setProjectDetail(convertedProject.getProjectDetail());
     }
 
     /**
@@ -112,9 +142,11 @@ public class ProjectServiceImpl implements ProjectService {
      * First get the project from the database
      * Second Instead of hard deleting set it is deleted is true for soft deleting
      * Third save the update or the soft deleting
+     * The project and its tasks are changed in one transaction, either both or none of them
      * @param code String
      */
     @Override
+    @Transactional
     public void delete(String code) {
         Project project = projectRepository.findByProjectCode(code);
         project.setIsDeleted(true);//marked deleted = soft delete
@@ -131,9 +163,11 @@ public class ProjectServiceImpl implements ProjectService {
      * if all the assigned tasks are not finished or completed
      * First find the status of the project
      * Second display if completed or not
+     * The project and its tasks are completed in one transaction
      * @param projectCode String
      */
     @Override
+    @Transactional
     public void complete(String projectCode) {
     Project project = projectRepository.findByProjectCode(projectCode);
     project.setProjectStatus(Status.COMPLETE);
@@ -146,28 +180,34 @@ public class ProjectServiceImpl implements ProjectService {
      * This method returns a list of all project details
      * The manager has to see the list of projects after he/she
      * logs into the system
-     * Note that: SecurityContextHolder captures the username dynamically to
-     * avoid hard coding.
+     * Note that: the id of the manager is taken from the logged-in user to
+     * avoid hard coding and another query.
      * Fist all the projects from the db should be assigned to the manager
      * @return a list of project details
      */
     @Override
     public List<ProjectDTO> listAllProjectDetails() {
-        //Spring security captures the username from the database dynamically
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-       // UserDTO currentUserDTO = userService.findByUserName("james@gmail.com");//hard coding
-        UserDTO currentUserDTO = userService.findByUserName(username);
-        //convert the captured user into entity
-        User user = userMapper.convertToEntity(currentUserDTO);
-        //putting the converted user into a list assigned to the manager
-        List<Project> list = projectRepository.findAllProjectsByAssignedManager(user);
-        //since none of the projects has task count, assign them to a new one, then return
-        return list.stream().map(p -> {
-            ProjectDTO projectDTO = projectMapper.convertToDTO(p);
-            projectDTO.setUnfinishedTaskCounts(taskService.totalUncompletedTasks(p.getProjectCode()));
-            projectDTO.setCompleteTaskCounts(taskService.totalCompletedTasks(p.getProjectCode()));
-            return projectDTO;
-        }).collect(Collectors.toList());
+        //putting the projects assigned to the manager into a list
+        List<Project> list = projectRepository.findAllProjectsByAssignedManagerId(securityService.getLoggedInUser().getId());
+        List<ProjectDTO> projectDTOList = list.stream().map(projectMapper::convertToDTO).collect(Collectors.toList());
+        //since none of the projects has task count, assign them all at once with one grouped query, then return
+        taskService.assignTaskCounts(projectDTOList);
+        return projectDTOList;
+    }
+
+    /**
+     * This method returns one page of the project details of the logged-in manager,
+     * the task counts are assigned only to the projects of the page
+     * @param pageable Pageable page number, size and sort
+     * @return a page of project details
+     */
+    @Override
+    public Page<ProjectSummaryDTO> listAllProjectDetails(Pageable pageable) {
+        //only the displayed columns are selected, no project or manager entity is converted
+        Page<ProjectSummaryDTO> projectPage = projectRepository
+                .findAllSummariesByAssignedManagerId(securityService.getLoggedInUser().getId(), pageable);
+        taskService.assignTaskCounts(projectPage.getContent());
+        return projectPage;
     }
 
     @Override
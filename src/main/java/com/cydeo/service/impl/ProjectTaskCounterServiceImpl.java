@@ -0,0 +1,181 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Task;
+import com.cydeo.enums.Status;
+import com.cydeo.projection.ProjectTaskCount;
+import com.cydeo.repository.ProjectTaskCounterRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.service.ProjectTaskCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps the completed and unfinished task counts of every project in the project_task_counters table.
+ * The task writes call it in their own transaction, so a count changes together with the tasks or not at all.
+ * The project tables read the counts by the project ids instead of counting the tasks on every view.
+ */
+@Slf4j
+@Service
+@Transactional
+public class ProjectTaskCounterServiceImpl implements ProjectTaskCounterService {
+
+    private final ProjectTaskCounterRepository counterRepository;
+    private final TaskRepository taskRepository;//the real counts for the reconciliation
+    private final TransactionTemplate transactionTemplate;//one transaction for every repaired counter
+
+    public ProjectTaskCounterServiceImpl(ProjectTaskCounterRepository counterRepository, TaskRepository taskRepository,
+                                         PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * This method creates the zero counts of a new project,
+     * so the first tasks of the project only update the row
+     * @param projectId Long
+     */
+    @Override
+    public void createCounter(Long projectId) {
+        counterRepository.upsert(projectId, 0, 0);
+    }
+
+    /**
+     * This method adds tasks of a status to the counts of a project, a negative count removes them.
+     * A project saved before the counters existed gets its row with the first task
+     * @param projectId Long
+     * @param status Status of the tasks
+     * @param count int number of tasks
+     */
+    @Override
+    public void add(Long projectId, Status status, int count) {
+        if (status == Status.COMPLETE) {
+            counterRepository.upsert(projectId, count, 0);
+        } else {
+            counterRepository.upsert(projectId, 0, count);
+        }
+    }
+
+    /**
+     * This method moves a task to another project or status,
+     * nothing is written when neither the project nor the completed state changes
+     * @param fromProjectId Long project id before the change
+     * @param fromStatus Status before the change
+     * @param toProjectId Long project id after the change
+     * @param toStatus Status after the change
+     */
+    @Override
+    public void move(Long fromProjectId, Status fromStatus, Long toProjectId, Status toStatus) {
+        if (Objects.equals(fromProjectId, toProjectId) && (fromStatus == Status.COMPLETE) == (toStatus == Status.COMPLETE)) {
+            return;
+        }
+        add(fromProjectId, fromStatus, -1);
+        add(toProjectId, toStatus, 1);
+    }
+
+    /**
+     * This method adds new tasks, such as a chunk of imported tasks,
+     * with one update for every project instead of one for every task
+     * @param tasks the saved tasks
+     */
+    @Override
+    public void addAll(Collection<Task> tasks) {
+        Map<Long, int[]> counts = new HashMap<>();
+        tasks.forEach(task -> {
+            int[] projectCounts = counts.computeIfAbsent(task.getProject().getId(), id -> new int[2]);
+            projectCounts[task.getTaskStatus() == Status.COMPLETE ? 0 : 1]++;
+        });
+        counts.forEach((projectId, projectCounts) -> counterRepository.upsert(projectId, projectCounts[0], projectCounts[1]));
+    }
+
+    @Override
+    public void completeAll(Long projectId) {
+        counterRepository.completeAll(projectId);
+    }
+
+    @Override
+    public void resetCounts(Long projectId) {
+        counterRepository.resetCounts(projectId);
+    }
+
+    //one select by the primary keys, no matter how many tasks the projects have
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProjectTaskCounter> findAllByProjectIds(Collection<Long> projectIds) {
+        return counterRepository.findAllById(projectIds);
+    }
+
+    /**
+     * This method compares the counters with the real task counts and repairs the ones that drifted,
+     * for example after a task was changed by hand in the database. The projects without a counter get one.
+     * The counts are first compared without any lock. Every project that looks drifted is then repaired
+     * in a short transaction of its own: its counter row is locked before its tasks are counted again,
+     * so a task write of the project either commits before the count and is counted,
+     * or waits for the repair and adds its change to the repaired counts.
+     * @return the number of repaired counters
+     */
+    @Override
+    @Scheduled(cron = "${task-counters.reconcile-cron}")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int reconcile() {
+        Map<Long, int[]> actualCounts = toCounts(taskRepository.countAllTasksByProjectAndStatus());
+        Map<Long, int[]> storedCounts = new HashMap<>();
+        counterRepository.findAll().forEach(counter -> storedCounts.put(counter.getProjectId(),
+                new int[]{counter.getCompleteCount(), counter.getUnfinishedCount()}));
+
+        Set<Long> projectIds = new HashSet<>(actualCounts.keySet());
+        projectIds.addAll(storedCounts.keySet());
+        int repaired = 0;
+        for (Long projectId : projectIds) {
+            if (!Arrays.equals(actualCounts.getOrDefault(projectId, new int[2]), storedCounts.get(projectId))
+                    && Boolean.TRUE.equals(transactionTemplate.execute(status -> repair(projectId)))) {
+                repaired++;
+            }
+        }
+        log.info("Task counters reconciled: {} checked, {} repaired", projectIds.size(), repaired);
+        return repaired;
+    }
+
+    //the counts of the project are compared again, the counter row is locked while they are counted
+    private boolean repair(Long projectId) {
+        counterRepository.upsert(projectId, 0, 0);//a project without a counter gets a zero one to lock
+        ProjectTaskCounter counter = counterRepository.findByIdForUpdate(projectId).orElseThrow();
+        int[] actual = toCounts(taskRepository.countTasksByProjectAndStatus(Collections.singleton(projectId)))
+                .getOrDefault(projectId, new int[2]);
+        if (counter.getCompleteCount() == actual[0] && counter.getUnfinishedCount() == actual[1]) {
+            return false;
+        }
+        log.warn("Task counts of project {} drifted: {}/{} counted, {}/{} stored", projectId,
+                actual[0], actual[1], counter.getCompleteCount(), counter.getUnfinishedCount());
+        //the counter is managed, the change is written at the commit of this project
+        counter.setCompleteCount(actual[0]);
+        counter.setUnfinishedCount(actual[1]);
+        return true;
+    }
+
+    //the completed and the unfinished task count of every project
+    private Map<Long, int[]> toCounts(List<ProjectTaskCount> taskCounts) {
+        Map<Long, int[]> counts = new HashMap<>();
+        taskCounts.forEach(count -> {
+            int[] projectCounts = counts.computeIfAbsent(count.getProjectId(), id -> new int[2]);
+            projectCounts[count.getTaskStatus() == Status.COMPLETE ? 0 : 1] += count.getTaskCount().intValue();
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,121 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.ProjectTaskCounterRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.PurgeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The soft deleted rows stay in the tables until the purge runs, every night by default.
+ * The rows deleted before purge.retention-days are hard deleted chunk by chunk, one short transaction
+ * per chunk of purge.batch-size rows and a pause of purge.pause-ms between the chunks,
+ * so the locks are held briefly and the requests get the database in between.
+ * A run stops after purge.max-duration-seconds, the next run continues with the rest.
+ * The referencing rows go first: the tasks, then the projects with their task counters, then the users.
+ * Every table is logged with its row count and rows per second, the rows are counted in purge.rows.deleted.
+ */
+@Slf4j
+@Service
+public class PurgeServiceImpl implements PurgeService {
+
+    private final TaskRepository taskRepository;
+    private final ProjectRepository projectRepository;
+    private final ProjectTaskCounterRepository counterRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+    private final long pauseMs;
+    private final long maxDurationSeconds;
+
+    public PurgeServiceImpl(TaskRepository taskRepository, ProjectRepository projectRepository,
+                            ProjectTaskCounterRepository counterRepository, UserRepository userRepository,
+                            MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+                            @Value("${purge.retention-days}") int retentionDays,
+                            @Value("${purge.batch-size}") int batchSize,
+                            @Value("${purge.pause-ms}") long pauseMs,
+                            @Value("${purge.max-duration-seconds}") long maxDurationSeconds) {
+        this.taskRepository = taskRepository;
+        this.projectRepository = projectRepository;
+        this.counterRepository = counterRepository;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    /**
+     * This method purges the tasks, the projects and the users deleted before the retention period
+     * @return the number of purged rows
+     */
+    @Override
+    @Scheduled(cron = "${purge.cron}")
+    public int purge() {
+        LocalDateTime deletedBefore = LocalDateTime.now().minusDays(retentionDays);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxDurationSeconds);
+
+        int purged = purge("tasks", deadline, limit -> taskRepository.findPurgeableIds(deletedBefore, limit),
+                taskRepository::purgeAllByIdIn);
+        purged += purge("projects", deadline, limit -> projectRepository.findPurgeableIds(deletedBefore, limit),
+                ids -> {
+                    counterRepository.deleteAllByProjectIdIn(ids);
+                    return projectRepository.purgeAllByIdIn(ids);
+                });
+        purged += purge("users", deadline, limit -> userRepository.findPurgeableIds(deletedBefore, limit),
+                userRepository::purgeAllByIdIn);
+        return purged;
+    }
+
+    //deletes the chunks of one table until a chunk is not full or the time is up
+    private int purge(String table, long deadline, IntFunction<List<Long>> findIds, ToIntFunction<List<Long>> delete) {
+        long start = System.nanoTime();
+        int purged = 0;
+        int chunk;
+        do {
+            if (System.nanoTime() - deadline > 0) {
+                log.warn("Purge of {} stopped after {} s, the next run continues", table, maxDurationSeconds);
+                break;
+            }
+            chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = findIds.apply(batchSize);
+                return ids.isEmpty() ? 0 : delete.applyAsInt(ids);
+            });
+            purged += chunk;
+        } while (chunk == batchSize && pause());
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        meterRegistry.counter("purge.rows.deleted", "table", table).increment(purged);
+        log.info("Purged {} {} in {} ms, {} rows/s", purged, table, elapsedMillis,
+                elapsedMillis == 0 ? purged : purged * 1000L / elapsedMillis);
+        return purged;
+    }
+
+    //gives the locks and the connection back to the requests for a while, false if the thread is interrupted
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
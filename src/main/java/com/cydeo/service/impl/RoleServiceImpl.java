@@ -1,31 +1,36 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.config.CacheConfig;
+import com.cydeo.config.MetricsConfig;
 import com.cydeo.dto.RoleDTO;
-import com.cydeo.mapper.MapperUtil;
 import com.cydeo.mapper.RoleMapper;
 import com.cydeo.repository.RoleRepository;
 import com.cydeo.service.RoleService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Transactional(readOnly = true)
 public class RoleServiceImpl implements RoleService {
 
     //declare the repositories to call methods that execute certain queries
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
-    private final MapperUtil mapperUtil;
 
-    public RoleServiceImpl(RoleRepository roleRepository, RoleMapper roleMapper, MapperUtil mapperUtil) {
+    public RoleServiceImpl(RoleRepository roleRepository, RoleMapper roleMapper) {
         this.roleRepository = roleRepository;
         this.roleMapper = roleMapper;
-        this.mapperUtil = mapperUtil;
     }
 
 
     @Override
+    @Cacheable(CacheConfig.ROLES)
     public List<RoleDTO> listAllRoles() {
         /*
         //fetch all the roles and return them
@@ -37,15 +42,13 @@ public class RoleServiceImpl implements RoleService {
         return roleDTOList;
         */
         ////////////////////to make it in one line
-       // return roleRepository.findAll().stream().map(roleMapper::convertToDTO).collect(Collectors.toList());
-        //use mapper util generic method
-        return roleRepository.findAll().stream().map(p -> mapperUtil.convert(p, new RoleDTO())).collect(Collectors.toList());
+        //the generated role mapper is used instead of the reflective generic MapperUtil
+        return roleRepository.findAll().stream().map(roleMapper::convertToDTO).collect(Collectors.toList());
     }
 
+    //the role is read from the hibernate second-level cache, see Role
     @Override
     public RoleDTO findById(Long id) {
-     //   return roleMapper.convertToDTO(roleRepository.findById(id).get());//returns optional
-        //use mapper util generic method
-        return mapperUtil.convert(roleRepository.findById(id).get(), new RoleDTO());
+        return roleMapper.convertToDTO(roleRepository.findById(id).get());//returns optional
     }
 }
@@ -1,12 +1,20 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.config.CacheConfig;
+import com.cydeo.config.MetricsConfig;
 import com.cydeo.entity.User;
 import com.cydeo.entity.common.UserPrincipal;
 import com.cydeo.repository.UserRepository;
 import com.cydeo.service.SecurityService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This class fetches a user from the database and validates/compares
@@ -16,8 +24,11 @@ import org.springframework.stereotype.Service;
  * (extracted from the User that implements UserDetails)
  * into the User entity(the User class entity that you created) using the mapper class.
  * The mapper class must implement the UserDetails
+ * Every form login and remember-me login asks for the user details, so they are cached
+ * by the username. The UserServiceImpl evicts the user whenever it is saved, updated or deleted.
 */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class SecurityServiceImpl implements SecurityService {
     private final UserRepository userRepository;//to call a method that extracts user details
 
@@ -27,6 +38,8 @@ public class SecurityServiceImpl implements SecurityService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS, key = "#username")
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         //fetching the user details of a given username from db, this user is an entity user
         User user = userRepository.findByUserName(username);
@@ -37,4 +50,19 @@ public class SecurityServiceImpl implements SecurityService {
         //takes a user entity and assigns it to the spring's user to validate using its methods
         return new UserPrincipal(user);//UserPrinciple maps/compares/validates automatically
     }
+
+    /**
+     * This method returns the logged-in user of the current request.
+     * The UserPrincipal was loaded at login and is kept in the security context,
+     * it already holds the id and the role, so no query is needed to find them again.
+     * @return the UserPrincipal of the logged-in user
+     */
+    @Override
+    public UserPrincipal getLoggedInUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) {
+            throw new AuthenticationCredentialsNotFoundException("There is no logged-in user");
+        }
+        return (UserPrincipal) authentication.getPrincipal();
+    }
 }
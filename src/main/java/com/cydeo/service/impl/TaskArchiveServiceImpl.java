@@ -0,0 +1,55 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.service.TaskArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * The tasks table is partitioned by the archived flag of the tasks (see V7__partition_tasks.sql).
+ * Every night the completed and the deleted tasks that were not changed for task-archive.age-days
+ * are moved to the archive partition. The tasks are moved in batches, one short transaction per batch,
+ * so the rows are never locked for long while the employees work with them.
+ */
+@Slf4j
+@Service
+public class TaskArchiveServiceImpl implements TaskArchiveService {
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int ageDays;
+    private final int batchSize;
+
+    public TaskArchiveServiceImpl(TaskRepository taskRepository, PlatformTransactionManager transactionManager,
+                                  @Value("${task-archive.age-days}") int ageDays,
+                                  @Value("${task-archive.batch-size}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ageDays = ageDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * This method moves the tasks batch by batch until a batch is not full
+     * @return the number of archived tasks
+     */
+    @Override
+    @Scheduled(cron = "${task-archive.cron}")
+    public int archive() {
+        LocalDateTime lastUpdatedBefore = LocalDateTime.now().minusDays(ageDays);
+        int archived = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> taskRepository.archiveBatch(lastUpdatedBefore, batchSize));
+            archived += batch;
+        } while (batch == batchSize);
+        log.info("{} tasks archived", archived);
+        return archived;
+    }
+}
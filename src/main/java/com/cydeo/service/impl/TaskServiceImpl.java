@@ -1,39 +1,69 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.config.MetricsConfig;
 import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskCounts;
 import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.TaskSummaryDTO;
+import com.cydeo.entity.AuditLog;
 import com.cydeo.entity.Task;
 import com.cydeo.entity.User;
+import com.cydeo.enums.AuditAction;
 import com.cydeo.enums.Status;
-import com.cydeo.mapper.ProjectMapper;
 import com.cydeo.mapper.TaskMapper;
+import com.cydeo.projection.TaskStatusLookup;
 import com.cydeo.repository.TaskRepository;
-import com.cydeo.repository.UserRepository;
+import com.cydeo.service.AuditService;
+import com.cydeo.service.ProjectTaskCounterService;
+import com.cydeo.service.SecurityService;
 import com.cydeo.service.TaskService;
-import org.springframework.security.core.context.SecurityContextHolder;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+//every method runs in a read-only transaction unless it is annotated as a write,
+//hibernate does not flush or dirty check it and the jdbc connection is marked read-only
+@Transactional(readOnly = true)
 public class TaskServiceImpl implements TaskService {
 
     private final TaskRepository taskRepository;
     private final TaskMapper taskMapper;
-    private final ProjectMapper projectMapper;
-    private final UserRepository userRepository;
+    private final SecurityService securityService;//to get the logged-in user
+    private final ProjectTaskCounterService taskCounterService;//the task counts of the projects, changed with the tasks
+    //the status update and the bulk updates do not go through the entity listener,
+    //not available in the tests that do not import it, then nothing is audited
+    private final ObjectProvider<AuditService> auditService;
 
 
     public TaskServiceImpl(TaskRepository taskRepository, TaskMapper taskMapper,
-                           ProjectMapper projectMapper, UserRepository userRepository) {
+                           SecurityService securityService, ProjectTaskCounterService taskCounterService,
+                           ObjectProvider<AuditService> auditService) {
         this.taskRepository = taskRepository;
         this.taskMapper = taskMapper;
-        this.projectMapper = projectMapper;
-        this.userRepository = userRepository;
+        this.securityService = securityService;
+        this.taskCounterService = taskCounterService;
+        this.auditService = auditService;
     }
 
     /**
@@ -68,6 +98,18 @@ public class TaskServiceImpl implements TaskService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * This method returns one page of the task table,
+     * the size of the page is bounded no matter how many tasks are stored
+     * @param pageable Pageable page number, size and sort
+     * @return a page of tasks
+     */
+    @Override
+    public Page<TaskSummaryDTO> findAllTasks(Pageable pageable) {
+        //only the columns of the table are selected, the tasks are not loaded as entities
+        return taskRepository.findAllSummaries(pageable);
+    }
+
     /**
      * This method catches & saves an assigned task from the UI into the db
      * First convert the UI fetched data(dto objects) into entity object
@@ -81,11 +123,13 @@ public class TaskServiceImpl implements TaskService {
      * @param dto TaskDTO
      */
     @Override
+    @Transactional
     public void save(TaskDTO dto) {
         dto.setTaskStatus(Status.OPEN);
         dto.setAssignedDate(LocalDate.now());
         Task task = taskMapper.convertToEntity(dto);
         taskRepository.save(task);
+        taskCounterService.add(task.getProject().getId(), task.getTaskStatus(), 1);
     }
 
     /**
@@ -95,18 +139,35 @@ public class TaskServiceImpl implements TaskService {
      * First you need to convert the updated data into entity object
      * Second store in the db through the repository
      * Need to capture the status and the date and set or assign the updated task
+     * The form carries the version the task was read with. If the task was changed since then
+     * the update is rejected, otherwise the fields of the form are set on the loaded task and hibernate
+     * writes them with "WHERE id = ? AND version = ?", so a change committed in the meantime is detected too.
      * @param dto TaskDTO
+     * @throws ObjectOptimisticLockingFailureException if the task was changed by someone else
      */
     @Override
+    @Transactional
     public void update(TaskDTO dto) {
         Optional<Task> task = taskRepository.findById(dto.getId());
-        Task convertedTask = taskMapper.convertToEntity(dto);
         if(task.isPresent()) {
-            convertedTask.setId(task.get().getId());//to avoid duplicated record
-            //there is no status inside the form so assign the status, if it is null(may get it from somewhere)
-            convertedTask.setTaskStatus(dto.getTaskStatus() == null ? task.get().getTaskStatus() : dto.getTaskStatus());
-            convertedTask.setAssignedDate(task.get().getAssignedDate());//assign the date
-            taskRepository.save(convertedTask);//save the updated task
+            task.get().checkVersion(dto.getVersion());
+            //the project and the status before the update, the counts move if one of them changes
+            Long projectId = task.get().getProject().getId();
+            Status status = task.get().getTaskStatus();
+            //only the fields of the form are changed, the assigned date is kept
+            Task convertedTask = taskMapper.convertToEntity(dto);
+            task.get().setProject(convertedTask.getProject());
+            task.get().setAssignedEmployee(convertedTask.getAssignedEmployee());
+            task.get().setTaskSubject(convertedTask.getTaskSubject());
+            task.get().setTaskDetail(convertedTask.getTaskDetail());
+            //there is no status inside the form, keep the status unless it comes from somewhere else
+            if (dto.getTaskStatus() != null) {
+                if (status == Status.COMPLETE && dto.getTaskStatus() != Status.COMPLETE) {
+                    task.get().setArchived(false);//back to the active partition, archived again once it is complete
+                }
+                task.get().setTaskStatus(dto.getTaskStatus());
+            }
+            taskCounterService.move(projectId, status, convertedTask.getProject().getId(), task.get().getTaskStatus());
         }
     }
 
@@ -116,49 +177,78 @@ public class TaskServiceImpl implements TaskService {
      * @param id Long
      */
     @Override
+    @Transactional
     public void delete(Long id) {
         //Since findById() returns Optional, the Task object must be Optional
         Optional<Task> foundTask = taskRepository.findById(id);
         if (foundTask.isPresent()) {
             foundTask.get().setIsDeleted(true);
             taskRepository.save(foundTask.get());
+            taskCounterService.add(foundTask.get().getProject().getId(), foundTask.get().getTaskStatus(), -1);
         }
     }
 
+    /**
+     * This method sets the completed and unfinished task counts of all the given projects.
+     * The counts are kept up to date by the task writes, so they are read by the project ids
+     * with one select, the tasks are not counted.
+     * Projects without any task keep zero counts.
+     * @param projects list of ProjectDTOs or ProjectSummaryDTOs
+     */
     @Override
-    public int totalUncompletedTasks(String projectCode) {
-        return taskRepository.totalUncompletedTasks(projectCode);
-    }
-
-    @Override
-    public int totalCompletedTasks(String projectCode) {
-        return taskRepository.totalCompletedTasks(projectCode);
+    public void assignTaskCounts(List<? extends TaskCounts> projects) {
+        if (projects.isEmpty()) {
+            return;
+        }
+        Map<Long, TaskCounts> projectMap = projects.stream()
+                .collect(Collectors.toMap(TaskCounts::getId, Function.identity()));
+        projects.forEach(p -> {
+            p.setCompleteTaskCounts(0);
+            p.setUnfinishedTaskCounts(0);
+        });
+        taskCounterService.findAllByProjectIds(projectMap.keySet()).forEach(counter -> {
+            TaskCounts project = projectMap.get(counter.getProjectId());
+            project.setCompleteTaskCounts(counter.getCompleteCount());
+            project.setUnfinishedTaskCounts(counter.getUnfinishedCount());
+        });
     }
 
     /**
      * This method is used to delete related tasks after a project is
      * marked deleted.
+     * All the tasks are soft deleted by one UPDATE statement instead of loading and saving them one by one,
+     * the last update date and user are set the same way the BaseEntityListener sets them.
+     * The update does not pass through the listener, so the deleted tasks are read and locked first
+     * and every one of them gets its audit log entry here
      * @param project ProjectDTO
      */
     @Override
+    @Transactional
     public void deleteByProject(ProjectDTO project) {
-      List<TaskDTO> taskList = listAllProjects(project);
-      taskList.forEach(p -> delete(p.getId()));
+        LocalDateTime now = LocalDateTime.now();
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        List<TaskStatusLookup> tasks = taskRepository.findAllStatusesByProjectIdForUpdate(project.getId());
+        taskRepository.softDeleteAllByProjectId(project.getId(), now, loggedInUserId);
+        taskCounterService.resetCounts(project.getId());
+        tasks.forEach(task -> audit(task.getId(), "isDeleted", false, true, loggedInUserId, now));
     }
 
     /**
      * This project marks if all assigned tasks are completed or not
+     * All the unfinished tasks are set to complete by one UPDATE statement,
+     * the status change of every one of them is audited here, as in deleteByProject()
      * @param project ProjectDTO
      */
     @Override
+    @Transactional
     public void completeByProject(ProjectDTO project) {
-        //get all the lists
-        List<TaskDTO> taskList = listAllProjects(project);
-        //get all the tasks and set them to complete, then save the change in the db
-        taskList.forEach(p -> {
-            p.setTaskStatus(Status.COMPLETE);
-            update(p);
-        });
+        LocalDateTime now = LocalDateTime.now();
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        List<TaskStatusLookup> tasks = taskRepository.findAllStatusesByProjectIdForUpdate(project.getId());
+        taskRepository.updateStatusByProjectId(project.getId(), Status.COMPLETE, now, loggedInUserId);
+        taskCounterService.completeAll(project.getId());
+        tasks.stream().filter(task -> task.getTaskStatus() != Status.COMPLETE).forEach(task ->
+                audit(task.getId(), "taskStatus", task.getTaskStatus(), Status.COMPLETE, loggedInUserId, now));
     }
 
     /**
@@ -167,15 +257,29 @@ public class TaskServiceImpl implements TaskService {
      * @return lis ot TaskDTOs
      */
     @Override
-    public List<TaskDTO> listAllTasksByStatusIsNot(Status status) {
+    public List<TaskSummaryDTO> listAllTasksByStatusIsNot(Status status) {
         //No security, a user is hard coded, to see if the user is able to see other's tasks or not
         //User loggedInUser = userRepository.findByUserName("john@employee.com");
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User loggedInUser = userRepository.findByUserName(username);
-        //get all the tasks
-        List<Task> taskList = taskRepository.findAllByTaskStatusIsNotAndAssignedEmployee(status,loggedInUser);
-        return taskList.stream().map(taskMapper::convertToDTO).collect(Collectors.toList());
+        //the id of the logged-in user comes from the security context, not from another query
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        //get only the displayed columns of the tasks
+        return taskRepository.findAllSummariesByTaskStatusIsNotAndAssignedEmployeeId(status, loggedInUserId);
+    }
+
+    /**
+     * This method returns one slice of the tasks of the logged-in user by the status, oldest first.
+     * Only the next slice is looked for, the tasks are not counted
+     * @param status Status the tasks do not have
+     * @param page int page number, starting at 0
+     * @param size int number of tasks
+     * @return slice of tasks
+     */
+    @Override
+    public Slice<TaskSummaryDTO> listAllTasksByStatusIsNot(Status status, int page, int size) {
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        return taskRepository.findAllSummariesByTaskStatusIsNotAndAssignedEmployeeId(status, loggedInUserId,
+                PageRequest.of(page, size, Sort.by("id")));
     }
 
     /**
@@ -188,45 +292,96 @@ public class TaskServiceImpl implements TaskService {
         //No security, a user is hard coded, to see if the user is able to see other's tasks or not
        // User loggedInUser = userRepository.findByUserName("john@employee.com");
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User loggedInUser = userRepository.findByUserName(username);
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
         //get all the tasks
-        List<Task> taskList = taskRepository.findAllByTaskStatusAndAssignedEmployee(status,loggedInUser);
+        List<Task> taskList = taskRepository.findAllByTaskStatusAndAssignedEmployeeId(status, loggedInUserId);
         return taskList.stream().map(taskMapper::convertToDTO).collect(Collectors.toList());
     }
 
+    /**
+     * This method returns the newest tasks by the status older than the cursor,
+     * the archive grows forever, so it is read with a keyset instead of an offset
+     * @param status Status
+     * @param before Long id of the last task of the previous slice, null for the newest tasks
+     * @param size int number of tasks
+     * @return slice of tasks, newest first
+     */
+    @Override
+    public Slice<TaskSummaryDTO> listAllTasksByStatus(Status status, Long before, int size) {
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        return taskRepository.findAllSummariesByTaskStatusAndAssignedEmployeeIdAndIdLessThan(status, loggedInUserId,
+                before == null ? Long.MAX_VALUE : before, PageRequest.of(0, size, Sort.by("id").descending()));
+    }
+
+    /**
+     * This method searches the subject and the detail of the tasks, the best matches first.
+     * The database finds and ranks the ids of one slice with its full-text index,
+     * then the rows of these ids are selected and put back in the order of the ranking.
+     * No count of all the matches is made, the slice only tells if there is a next one.
+     * @param query String words to search, as typed in a search box
+     * @param projectCode String project of the tasks, null for every project
+     * @param status Status of the tasks, null for every status
+     * @param pageable Pageable page number and size, the order is the ranking
+     * @return slice of tasks, best match first
+     */
+    @Override
+    public Slice<TaskSummaryDTO> search(String query, String projectCode, Status status, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        Slice<Number> slice = taskRepository.searchIds(query, projectCode == null ? "" : projectCode,
+                status == null ? "" : status.name(), PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        if (!slice.hasContent()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        List<Long> ids = slice.getContent().stream().map(Number::longValue).collect(Collectors.toList());
+        Map<Long, TaskSummaryDTO> tasks = taskRepository.findAllSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(TaskSummaryDTO::getId, Function.identity()));
+        List<TaskSummaryDTO> rankedTasks = ids.stream()
+                .map(tasks::get)
+                .filter(Objects::nonNull)//deleted between the two selects
+                .collect(Collectors.toList());
+        return new SliceImpl<>(rankedTasks, pageable, slice.hasNext());
+    }
+
     /**
      * This method update the status only
-     * First get the object from the db, it already has the id
-     * Second update the task
-     * @param dto TaskDTO
+     * The task is not read, one conditional UPDATE changes the status if the task still has
+     * the version, the project and the status the form was opened with.
+     * When no row is updated someone else changed or deleted the task in the meantime,
+     * the request is rejected instead of overwriting that change.
+     * The bulk update skips the entity listener, so the change of the status is audited here.
+     * @param dto TaskDTO with the id, the version, the project and the previous status of the form
+     * @throws ObjectOptimisticLockingFailureException if the task was changed by someone else
      */
     @Override
+    @Transactional
     public void updateStatus(TaskDTO dto) {
-        //id is coming from db not from the dto or UI form, so no need to convert it to entity
-        Optional<Task> task = taskRepository.findById(dto.getId());
-        if(task.isPresent()) {
-            //do the changes on the db directly, set to whatever the status is currently
-            task.get().setTaskStatus(dto.getTaskStatus());
-            taskRepository.save(task.get()); //save the changes
+        Long projectId = dto.getProject().getId();
+        Status status = dto.getPreviousTaskStatus();
+        Long loggedInUserId = securityService.getLoggedInUser().getId();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = taskRepository.updateStatus(dto.getId(), dto.getVersion(), projectId, status,
+                dto.getTaskStatus(), now, loggedInUserId);
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Task.class, dto.getId());
+        }
+        taskCounterService.move(projectId, status, projectId, dto.getTaskStatus());
+        if (status != dto.getTaskStatus()) {
+            audit(dto.getId(), "taskStatus", status, dto.getTaskStatus(), loggedInUserId, now);
         }
     }
 
+    //the change of a task made by a bulk update, recorded the way the BaseEntityListener records a flushed one
+    private void audit(Long taskId, String field, Object oldValue, Object newValue, Long userId, LocalDateTime now) {
+        auditService.ifAvailable(service -> service.record(new AuditLog(Task.class.getSimpleName(), taskId,
+                AuditAction.UPDATE, field, oldValue, newValue, userId, now)));
+    }
+
     @Override
     public List<TaskDTO> listAllTasksByAssignedEmployee(User assignedEmployee) {
         //get a list of tasks assigned to an employee
         List<Task> taskList = taskRepository.findAllByAssignedEmployee(assignedEmployee);
         return taskList.stream().map(taskMapper::convertToDTO).collect(Collectors.toList());
     }
-
-    /**
-     * This is a helper method for the above deleteByProject()
-      * and completeByProject() methods
-     * @param project ProjectDTO
-     * @return list of tasks converted to DTOs
-     */
-    private List<TaskDTO> listAllProjects(ProjectDTO project) {
-        List<Task> taskList = taskRepository.findAllByProject(projectMapper.convertToEntity(project));
-        return taskList.stream().map(taskMapper::convertToDTO).collect(Collectors.toList());
-    }
 }
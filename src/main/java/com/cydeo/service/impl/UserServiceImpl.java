@@ -1,26 +1,44 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.config.CacheConfig;
+import com.cydeo.config.MetricsConfig;
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserOptionDTO;
+import com.cydeo.dto.UserSummaryDTO;
 import com.cydeo.entity.User;
 import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.UserRepository;
 import com.cydeo.service.ProjectService;
 import com.cydeo.service.TaskService;
 import com.cydeo.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-//@Transactional//must add it, when using ddl operations & derived query methods
+@Timed(MetricsConfig.SERVICE_TIMER)
+//read-only by default, the writes are annotated with @Transactional,
+//a derived delete query such as deleteByUserName() cannot run without a transaction
+@Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
 
+    //a shorter text matches too many users to narrow anything, and a contains-match of it cannot use the trigram indexes
+    private static final int MIN_TERM_LENGTH = 3;
+
     //declare the repositories to call methods that execute certain queries
     private final UserRepository userRepository;
     private final UserMapper userMapper;
@@ -53,6 +71,12 @@ public class UserServiceImpl implements UserService {
         return userList.stream().map(userMapper::convertToDto).collect(Collectors.toList());
     }
 
+    //this method returns one page of the users for the UI table, only the displayed columns are selected
+    @Override
+    public Page<UserSummaryDTO> listAllUsers(Pageable pageable) {
+        return userRepository.findAllSummaries(pageable);
+    }
+
     @Override
     public UserDTO findByUserName(String username) {
         User user = userRepository.findByUserName(username);
@@ -60,6 +84,8 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#userDTO.userName")
+    @Transactional
     public void save(UserDTO userDTO) {
         //UI password entry is not encoded
        // userRepository.save(userMapper.convertToEntity(userDTO));
@@ -82,22 +108,35 @@ public class UserServiceImpl implements UserService {
      * @param dto UserDTO object
      * @return UserDTO object to display it again on the UI form. Every UI displayed object
      * is DTO object
+     * The cached principal is evicted, so a disabled user or a changed role takes effect at the next login
+     * A form opened before the last change of the user is rejected. The fields of the form are set on the
+     * loaded user and written with its version, the username and the enabled flag are not on the form and are kept
+     * @throws ObjectOptimisticLockingFailureException if the user was changed by someone else
      */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#dto.userName")
+    @Transactional
     public UserDTO update(UserDTO dto) {
         //to get the id of the current user, first capture the dto/user by the username
         User user = userRepository.findByUserName(dto.getUserName());
-        //converting the dto object to entity object, otherwise cannot save it in the db
+        user.checkVersion(dto.getVersion());
+        //converting the dto object to entity object, the role comes converted with it
         User dtoConvertedToEntity = userMapper.convertToEntity(dto);
-        //setting the id of the captured object, now it will update, but won't duplicate
-        dtoConvertedToEntity.setId(user.getId());
-        //saving the updated or the converted object user
-        userRepository.save(dtoConvertedToEntity);
+        //setting the fields of the form on the loaded user, hibernate writes them at the commit
+        user.setFirstName(dtoConvertedToEntity.getFirstName());
+        user.setLastName(dtoConvertedToEntity.getLastName());
+        user.setPassWord(dtoConvertedToEntity.getPassWord());
+        user.setPhone(dtoConvertedToEntity.getPhone());
+        user.setRole(dtoConvertedToEntity.getRole());
+        user.setGender(dtoConvertedToEntity.getGender());
+        //the query below flushes the change first, so the returned dto has the new version
         //return the dto object capturing it by username
         return findByUserName(dto.getUserName());
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#username")
+    @Transactional
     public void deleteByUserName(String username) {
         userRepository.deleteByUserName(username);
     }
@@ -111,6 +150,8 @@ public class UserServiceImpl implements UserService {
      * @param username String
      */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#username")
+    @Transactional
     public void delete(String username) {
         //don't want to delete from the database, only change the flag in the db
         User user = userRepository.findByUserName(username);
@@ -145,9 +186,24 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * This method looks up the users of a role while a manager types into the manager or employee field of a form.
+     * Only the first users matching the text are read, the forms no longer load every user of the role.
+     * The text may be anywhere in the username or in the full name, case-insensitive,
+     * the % and _ typed by the user are escaped, they are not wildcards.
+     * @param role String role description, case-insensitive
+     * @param term String the typed text, a text shorter than 3 characters matches no user
+     * @param limit int the maximum number of users
+     * @return list of UserOptionDTOs ordered by name
+     */
     @Override
-    public List<UserDTO> listAllByRole(String role) {
-        List<User> userList = userRepository.findAllByRoleDescriptionIgnoreCase(role);
-        return userList.stream().map(userMapper::convertToDto).collect(Collectors.toList());
+    public List<UserOptionDTO> lookup(String role, String term, int limit) {
+        String trimmed = term.trim();
+        if (trimmed.length() < MIN_TERM_LENGTH) {
+            return Collections.emptyList();
+        }
+        String escaped = trimmed.toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return userRepository.lookup(role, "%" + escaped + "%", PageRequest.of(0, limit));
     }
 }
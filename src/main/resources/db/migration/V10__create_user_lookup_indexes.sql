@@ -0,0 +1,9 @@
+-- The manager and employee lookups of the forms (see UserRepository.lookup) match the typed text anywhere
+-- in the username or in the full name with LIKE '%text%', a btree index cannot serve it.
+-- A trigram index of pg_trgm can, the lookup reads only the matching users instead of all the users of the role.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- the expressions are the ones the lookup query compares, the deleted users are never offered
+CREATE INDEX idx_users_user_name_trgm ON users USING GIN (lower(user_name) gin_trgm_ops) WHERE is_deleted = false;
+CREATE INDEX idx_users_full_name_trgm ON users USING GIN (lower(first_name || ' ' || last_name) gin_trgm_ops)
+    WHERE is_deleted = false;
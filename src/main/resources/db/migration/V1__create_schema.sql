@@ -0,0 +1,78 @@
+-- The schema of the application, it was generated by hibernate (ddl-auto=create) before the migrations.
+-- Hibernate only validates it now, so every change of an entity needs a new migration.
+
+-- The databases of the application still hold the tables hibernate created. They were recreated on every start
+-- and filled by data.sql, so they hold no data to keep. Flyway baselines such a schema at version 0 (see
+-- spring.flyway.baseline-on-migrate) and this migration replaces the tables, on an empty database nothing is dropped.
+-- The names are qualified: flyway puts the schema in front of the search path, an unqualified name missing
+-- in the schema would drop the table of the same name in public.
+DROP TABLE IF EXISTS ${flyway:defaultSchema}.tasks CASCADE;
+DROP TABLE IF EXISTS ${flyway:defaultSchema}.projects CASCADE;
+DROP TABLE IF EXISTS ${flyway:defaultSchema}.users CASCADE;
+DROP TABLE IF EXISTS ${flyway:defaultSchema}.roles CASCADE;
+DROP SEQUENCE IF EXISTS ${flyway:defaultSchema}.hibernate_sequence;
+
+-- ids of all the tables, hibernate reserves 50 ids per call (see BaseEntity)
+CREATE SEQUENCE entity_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE roles
+(
+    id                    BIGINT    NOT NULL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    description           VARCHAR(255)
+);
+
+CREATE TABLE users
+(
+    id                    BIGINT       NOT NULL PRIMARY KEY,
+    insert_date_time      TIMESTAMP    NOT NULL,
+    insert_user_id        BIGINT       NOT NULL,
+    last_update_date_time TIMESTAMP    NOT NULL,
+    last_update_user_id   BIGINT       NOT NULL,
+    is_deleted            BOOLEAN,
+    first_name            VARCHAR(255),
+    last_name             VARCHAR(255),
+    user_name             VARCHAR(255) NOT NULL CONSTRAINT uk_users_user_name UNIQUE,
+    pass_word             VARCHAR(255),
+    enabled               BOOLEAN      NOT NULL,
+    phone                 VARCHAR(255),
+    gender                VARCHAR(255),
+    role_id               BIGINT CONSTRAINT fk_users_role REFERENCES roles
+);
+
+CREATE TABLE projects
+(
+    id                    BIGINT    NOT NULL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    project_code          VARCHAR(255) CONSTRAINT uk_projects_project_code UNIQUE,
+    project_name          VARCHAR(255) CONSTRAINT uk_projects_project_name UNIQUE,
+    manager_id            BIGINT CONSTRAINT fk_projects_manager REFERENCES users,
+    start_date            DATE,
+    end_date              DATE,
+    project_detail        VARCHAR(255),
+    project_status        VARCHAR(255)
+);
+
+CREATE TABLE tasks
+(
+    id                    BIGINT    NOT NULL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    task_subject          VARCHAR(255),
+    task_detail           VARCHAR(255),
+    task_status           VARCHAR(255),
+    assigned_date         DATE,
+    assigned_employee_id  BIGINT CONSTRAINT fk_tasks_assigned_employee REFERENCES users,
+    project_id            BIGINT CONSTRAINT fk_tasks_project REFERENCES projects
+);
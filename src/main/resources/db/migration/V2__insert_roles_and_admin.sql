@@ -0,0 +1,13 @@
+-- The roles and the first admin user, they used to be inserted by data.sql on every start.
+
+insert into roles(id, insert_date_time, insert_user_id, is_deleted, last_update_date_time, last_update_user_id, description)
+VALUES (nextval('entity_id_seq'), '2021-01-05 00:00:00', 1, false, '2021-01-05 00:00:00', 1, 'Admin'),
+       (nextval('entity_id_seq'), '2021-01-05 00:00:00', 1, false, '2021-01-05 00:00:00', 1, 'Manager'),
+       (nextval('entity_id_seq'), '2021-01-05 00:00:00', 1, false, '2021-01-05 00:00:00', 1, 'Employee');
+
+insert into users(id, insert_date_time, insert_user_id, is_deleted, last_update_date_time, last_update_user_id, enabled,
+                  first_name, gender, last_name, user_name, role_id,pass_word)
+values (nextval('entity_id_seq'), '2021-01-05 00:00:00', 1, false, '2021-01-05 00:00:00', 1, true, 'admin', 'MALE', 'admin', 'admin@admin.com',
+        (select id from roles where description = 'Admin'),'$2a$10$nAB5j9G1c3JHgg7qzhiIXO7cqqr5oJ3LXRNQJKssDUwHXzDGUztNK');
+
+-- the password of the admin is Abc1
@@ -0,0 +1,15 @@
+-- Every query of the soft deleted entities carries is_deleted=false (@Where on Task, Project and User),
+-- so the indexes are partial: the deleted rows are left out and the indexes stay small.
+-- The columns follow the filters of the repositories.
+
+-- tasks of the logged-in employee by status (pending tasks, archive, user delete check)
+CREATE INDEX idx_tasks_assigned_employee_status ON tasks (assigned_employee_id, task_status) WHERE is_deleted = false;
+
+-- task counts, bulk complete and delete of the tasks of a project
+CREATE INDEX idx_tasks_project_status ON tasks (project_id, task_status) WHERE is_deleted = false;
+
+-- projects of the logged-in manager
+CREATE INDEX idx_projects_manager ON projects (manager_id) WHERE is_deleted = false;
+
+-- users by role (manager and employee drop downs)
+CREATE INDEX idx_users_role ON users (role_id) WHERE is_deleted = false;
@@ -0,0 +1,18 @@
+-- The completed and unfinished task counts of every project, changed by the task writes in the same transaction
+-- (see ProjectTaskCounterServiceImpl), so the project tables do not count the tasks on every view.
+
+CREATE TABLE project_task_counters
+(
+    project_id       BIGINT  NOT NULL PRIMARY KEY CONSTRAINT fk_project_task_counters_project REFERENCES projects,
+    complete_count   INTEGER NOT NULL DEFAULT 0,
+    unfinished_count INTEGER NOT NULL DEFAULT 0
+);
+
+-- the counts of the existing projects, only the tasks that are not soft deleted are counted
+INSERT INTO project_task_counters (project_id, complete_count, unfinished_count)
+SELECT p.id,
+       COUNT(t.id) FILTER (WHERE t.task_status = 'COMPLETE'),
+       COUNT(t.id) FILTER (WHERE t.task_status <> 'COMPLETE')
+FROM projects p
+         LEFT JOIN tasks t ON t.project_id = p.id AND t.is_deleted = false
+GROUP BY p.id;
@@ -0,0 +1,21 @@
+-- Append-only history of the changes of the tasks, projects and users: the inserted rows and every changed field
+-- with its old and new value and the user who changed it. Written in batches by AuditServiceImpl.
+
+-- 50 ids are reserved per call (see AuditLog)
+CREATE SEQUENCE audit_log_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE audit_log
+(
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    entity_type VARCHAR(255) NOT NULL,
+    entity_id   BIGINT       NOT NULL,
+    action      VARCHAR(255) NOT NULL,
+    field_name  VARCHAR(255),
+    old_value   VARCHAR(255),
+    new_value   VARCHAR(255),
+    user_id     BIGINT,
+    changed_at  TIMESTAMP    NOT NULL
+);
+
+-- the history of one entity
+CREATE INDEX idx_audit_log_entity ON audit_log (entity_type, entity_id);
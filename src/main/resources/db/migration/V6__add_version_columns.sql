@@ -0,0 +1,7 @@
+-- Optimistic locking (see BaseEntity.version): every update increments the version of the row
+-- and is applied only if the row still has the version it was read with.
+
+ALTER TABLE roles ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE projects ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tasks ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,50 @@
+-- The tasks are split into two partitions by the archived flag (see TaskArchiveServiceImpl):
+-- tasks_active keeps the open and in progress tasks that the pending task pages read,
+-- tasks_archive the completed and the soft deleted tasks, which only grow.
+-- The queries with "archived = false" read tasks_active only, an update of the flag moves the row to the other partition.
+-- The primary key of a partitioned table must contain the partition key, the ids still come from entity_id_seq.
+
+ALTER TABLE tasks RENAME TO tasks_unpartitioned;
+DROP INDEX idx_tasks_assigned_employee_status;
+DROP INDEX idx_tasks_project_status;
+
+CREATE TABLE tasks
+(
+    id                    BIGINT    NOT NULL,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    version               BIGINT    NOT NULL DEFAULT 0,
+    task_subject          VARCHAR(255),
+    task_detail           VARCHAR(255),
+    task_status           VARCHAR(255),
+    assigned_date         DATE,
+    assigned_employee_id  BIGINT CONSTRAINT fk_tasks_assigned_employee REFERENCES users,
+    project_id            BIGINT CONSTRAINT fk_tasks_project REFERENCES projects,
+    archived              BOOLEAN   NOT NULL DEFAULT false,
+    CONSTRAINT pk_tasks PRIMARY KEY (id, archived)
+) PARTITION BY LIST (archived);
+
+CREATE TABLE tasks_active PARTITION OF tasks FOR VALUES IN (false);
+CREATE TABLE tasks_archive PARTITION OF tasks FOR VALUES IN (true);
+
+-- the existing completed and deleted tasks go to the archive right away
+INSERT INTO tasks (id, insert_date_time, insert_user_id, last_update_date_time, last_update_user_id, is_deleted, version,
+                   task_subject, task_detail, task_status, assigned_date, assigned_employee_id, project_id, archived)
+SELECT id, insert_date_time, insert_user_id, last_update_date_time, last_update_user_id, is_deleted, version,
+       task_subject, task_detail, task_status, assigned_date, assigned_employee_id, project_id,
+       COALESCE(is_deleted, false) OR COALESCE(task_status = 'COMPLETE', false)
+FROM tasks_unpartitioned;
+
+DROP TABLE tasks_unpartitioned;
+
+-- the indexes of V3, created on both partitions
+CREATE INDEX idx_tasks_assigned_employee_status ON tasks (assigned_employee_id, task_status) WHERE is_deleted = false;
+CREATE INDEX idx_tasks_project_status ON tasks (project_id, task_status) WHERE is_deleted = false;
+
+-- the archive page of an employee, newest first with the id as the cursor
+CREATE INDEX idx_tasks_archive_employee ON tasks_archive (assigned_employee_id, id) WHERE is_deleted = false;
+
+ANALYZE tasks;
@@ -0,0 +1,12 @@
+-- The purge (see PurgeServiceImpl) hard deletes the rows soft deleted before the retention period.
+
+-- the deleted rows by the time of the delete, small indexes of the deleted rows only
+CREATE INDEX idx_tasks_deleted ON tasks (last_update_date_time) WHERE is_deleted = true;
+CREATE INDEX idx_projects_deleted ON projects (last_update_date_time) WHERE is_deleted = true;
+CREATE INDEX idx_users_deleted ON users (last_update_date_time) WHERE is_deleted = true;
+
+-- the indexes of V3 leave the deleted rows out. A deleted project or user is purged only when no row refers to it,
+-- and the foreign keys are checked for every deleted row, both look up the deleted rows too
+CREATE INDEX idx_tasks_project ON tasks (project_id);
+CREATE INDEX idx_tasks_assigned_employee ON tasks (assigned_employee_id);
+CREATE INDEX idx_projects_manager_all ON projects (manager_id);
@@ -0,0 +1,10 @@
+-- Full-text search of the tasks (see TaskRepository.searchIds). The search vector is a generated column,
+-- postgres computes it from the subject and the detail on every insert and update of a task.
+-- A match in the subject ranks higher (weight A) than a match in the detail (weight B).
+ALTER TABLE tasks
+    ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(task_subject, '')), 'A') ||
+        setweight(to_tsvector('english', COALESCE(task_detail, '')), 'B')) STORED;
+
+-- the deleted tasks are never searched
+CREATE INDEX idx_tasks_search ON tasks USING GIN (search_vector) WHERE is_deleted = false;
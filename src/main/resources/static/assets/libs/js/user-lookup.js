@@ -0,0 +1,45 @@
+/*
+ * Typeahead of the manager and employee fields of the project and task forms.
+ * An input with a data-lookup-role attribute and a datalist asks /lookup/users for the users
+ * of the role matching the typed text, and fills the datalist with them.
+ * The value of an option is the username the form submits, its label the full name.
+ * The requests wait until the typing pauses and at least 3 characters are typed,
+ * an answer of an older text is ignored.
+ */
+$(function () {
+    var MIN_TERM_LENGTH = 3;
+
+    $('input[data-lookup-role]').each(function () {
+        var input = $(this);
+        var datalist = $('#' + input.attr('list'));
+        var url = input.data('lookup-url');
+        var timer = null;
+        var lastTerm = null;
+
+        function lookup() {
+            var term = input.val().trim();
+            if (term === lastTerm) {
+                return;
+            }
+            lastTerm = term;
+            if (term.length < MIN_TERM_LENGTH) {
+                datalist.empty();
+                return;
+            }
+            $.getJSON(url, {role: input.data('lookup-role'), q: term, limit: 10}, function (users) {
+                if (term !== lastTerm) {
+                    return;
+                }
+                datalist.empty();
+                $.each(users, function (i, user) {
+                    $('<option>').val(user.userName).text(user.firstName + ' ' + user.lastName).appendTo(datalist);
+                });
+            });
+        }
+
+        input.on('input', function () {
+            clearTimeout(timer);
+            timer = setTimeout(lookup, 250);
+        });
+    });
+});
@@ -0,0 +1,138 @@
+package com.cydeo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The migrations applied to a database which already holds rows, in a schema of its own.
+ * Flyway uses connections of its own, so the tests do not run in a transaction.
+ */
+@JdbcTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("com.cydeo.PostgresTestDatabase#isAvailable")
+class MigrationsPostgresTest {
+
+    private static final String SCHEMA = "migrations_test";
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    //the baseline settings of application.properties
+    @Autowired
+    private FlywayProperties flywayProperties;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    /**
+     * The schema of a database created by hibernate with ddl-auto=create and filled by data.sql,
+     * as the production database was before the migrations.
+     */
+    @Test
+    void migrate_replacesTheTablesCreatedByHibernateBeforeTheMigrations() {
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        String audit = "id BIGSERIAL NOT NULL PRIMARY KEY, insert_date_time TIMESTAMP NOT NULL, " +
+                "insert_user_id BIGINT NOT NULL, last_update_date_time TIMESTAMP NOT NULL, " +
+                "last_update_user_id BIGINT NOT NULL, is_deleted BOOLEAN, ";
+        jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".roles (" + audit + "description VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".users (" + audit + "first_name VARCHAR(255), " +
+                "last_name VARCHAR(255), user_name VARCHAR(255) UNIQUE, pass_word VARCHAR(255), enabled BOOLEAN NOT NULL, " +
+                "phone VARCHAR(255), gender VARCHAR(255), role_id BIGINT REFERENCES " + SCHEMA + ".roles)");
+        jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".projects (" + audit + "project_code VARCHAR(255) UNIQUE, " +
+                "project_name VARCHAR(255), manager_id BIGINT REFERENCES " + SCHEMA + ".users, start_date DATE, " +
+                "end_date DATE, project_detail VARCHAR(255), project_status VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".tasks (" + audit + "task_subject VARCHAR(255), " +
+                "task_detail VARCHAR(255), task_status VARCHAR(255), assigned_date DATE, " +
+                "assigned_employee_id BIGINT REFERENCES " + SCHEMA + ".users, project_id BIGINT REFERENCES " + SCHEMA + ".projects)");
+        jdbcTemplate.execute("CREATE SEQUENCE " + SCHEMA + ".hibernate_sequence");
+        jdbcTemplate.update("INSERT INTO " + SCHEMA + ".roles (insert_date_time, insert_user_id, is_deleted, " +
+                "last_update_date_time, last_update_user_id, description) VALUES (now(), 1, false, now(), 1, 'Admin')");
+
+        Flyway.configure().dataSource(dataSource).schemas(SCHEMA).locations("classpath:db/migration")
+                .baselineOnMigrate(flywayProperties.isBaselineOnMigrate())
+                .baselineVersion(flywayProperties.getBaselineVersion())
+                .target("9").load().migrate();
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), jdbcTemplate.queryForList(
+                "SELECT version FROM " + SCHEMA + ".flyway_schema_history WHERE success ORDER BY installed_rank", String.class));
+        assertEquals(Arrays.asList("Admin", "Manager", "Employee"), jdbcTemplate.queryForList(
+                "SELECT description FROM " + SCHEMA + ".roles ORDER BY id", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_sequences " +
+                "WHERE schemaname = ? AND sequencename = 'hibernate_sequence'", Integer.class, SCHEMA));
+    }
+
+    @Test
+    void v7_copiesTheExistingTasksToTheirPartitionAndDropsTheOldTable() {
+        migrate("6");
+        jdbcTemplate.update("INSERT INTO " + SCHEMA + ".projects (id, insert_date_time, insert_user_id, " +
+                "last_update_date_time, last_update_user_id, is_deleted, project_code, project_status) " +
+                "VALUES (1, now(), 1, now(), 1, false, 'PR001', 'OPEN')");
+        String insertTask = "INSERT INTO " + SCHEMA + ".tasks (id, insert_date_time, insert_user_id, " +
+                "last_update_date_time, last_update_user_id, is_deleted, task_status, project_id) " +
+                "VALUES (?, now(), 1, now(), 1, ?, ?, 1)";
+        jdbcTemplate.update(insertTask, 1, false, "OPEN");
+        jdbcTemplate.update(insertTask, 2, false, "COMPLETE");
+        jdbcTemplate.update(insertTask, 3, true, "IN_PROGRESS");
+        //the columns were nullable before V7
+        jdbcTemplate.update(insertTask, 4, null, null);
+
+        migrate("7");
+
+        Map<Long, String> expected = new LinkedHashMap<>();
+        expected.put(1L, SCHEMA + ".tasks_active");
+        expected.put(2L, SCHEMA + ".tasks_archive");
+        expected.put(3L, SCHEMA + ".tasks_archive");
+        expected.put(4L, SCHEMA + ".tasks_active");
+        Map<Long, String> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, tableoid::regclass::text AS partition FROM " + SCHEMA + ".tasks ORDER BY id",
+                row -> {
+                    partitions.put(row.getLong("id"), row.getString("partition"));
+                });
+        assertEquals(expected, partitions);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_tables " +
+                "WHERE schemaname = ? AND tablename = 'tasks_unpartitioned'", Integer.class, SCHEMA));
+    }
+
+    //V10 creates pg_trgm, the migrations run here stop before it: the extension belongs to the public schema
+    private void migrate(String target) {
+        Flyway.configure().dataSource(dataSource).schemas(SCHEMA)
+                .locations("classpath:db/migration").target(target).load().migrate();
+    }
+}
@@ -0,0 +1,54 @@
+package com.cydeo;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * The postgres database of the tests of the flyway migrations and of the postgres only queries,
+ * the other tests run on the h2 schema created by hibernate, which has none of them.
+ * The database of the test.postgres.url system property is used when it is set (with test.postgres.username
+ * and test.postgres.password), such as the postgres service of the CI build. Otherwise a postgres container
+ * is started once for all the test classes, and without docker the tests are skipped.
+ * The test classes are annotated with @EnabledIf("com.cydeo.PostgresTestDatabase#isAvailable")
+ * and register the datasource with a @DynamicPropertySource method calling register().
+ */
+public final class PostgresTestDatabase {
+
+    private static final String URL = System.getProperty("test.postgres.url");
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    public static boolean isAvailable() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    //the schema is created by the migrations V1 to the last one, hibernate only checks it, as in production
+    public static void register(DynamicPropertyRegistry registry) {
+        if (URL != null) {
+            registry.add("spring.datasource.url", () -> URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.postgres.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.postgres.password", ""));
+        } else {
+            PostgreSQLContainer<?> postgres = container();
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        }
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    //stopped by testcontainers when the test jvm exits
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:14-alpine");
+            container.start();
+        }
+        return container;
+    }
+}
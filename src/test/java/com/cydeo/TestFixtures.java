@@ -0,0 +1,70 @@
+package com.cydeo;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.BaseEntity;
+import com.cydeo.enums.Status;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+
+/**
+ * The users, projects and tasks the service tests save before they call a service.
+ * Every fixture is valid with the defaults below, a test changes the fields it is about before saving it.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static User user(String userName, Role role) {
+        User user = new User();
+        user.setFirstName("first");
+        user.setLastName("last");
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setEnabled(true);
+        user.setRole(role);
+        return user;
+    }
+
+    public static Project project(String code, User manager) {
+        Project project = new Project();
+        project.setProjectCode(code);
+        project.setProjectName(code + " name");
+        project.setAssignedManager(manager);
+        project.setStartDate(LocalDate.of(2023, 1, 1));
+        project.setProjectStatus(Status.OPEN);
+        return project;
+    }
+
+    public static Task task(Project project, User employee, Status status) {
+        Task task = new Task();
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        task.setTaskSubject("subject");
+        task.setTaskDetail("detail");
+        task.setTaskStatus(status);
+        task.setAssignedDate(LocalDate.now());
+        return task;
+    }
+
+    public static <T extends BaseEntity> T persist(TestEntityManager entityManager, T entity) {
+        return entityManager.persist(audited(entity));
+    }
+
+    public static <T extends BaseEntity> T persist(EntityManager entityManager, T entity) {
+        entityManager.persist(audited(entity));
+        return entity;
+    }
+
+    //there is no logged-in user while the fixtures are saved, so the audit user ids are set by hand
+    private static <T extends BaseEntity> T audited(T entity) {
+        entity.setInsertUserId(1L);
+        entity.setLastUpdateUserId(1L);
+        return entity;
+    }
+}
@@ -0,0 +1,179 @@
+package com.cydeo.config;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.service.AuditService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Every request is sampled here (server-timing.sample-rate=1.0), the pages are requested through the whole
+ * filter chain with MockMvc. The statements the SqlTimingListener counts for a page are compared
+ * with the statements hibernate prepared, the requests of the test run one after the other.
+ * The test does not run in a transaction, the pages read what the setup committed.
+ */
+@SpringBootTest(properties = "server-timing.sample-rate=1.0")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServerTimingFilterTest {
+
+    private static final Pattern HEADER = Pattern.compile(
+            "db;desc=\"(\\d+) statements\";dur=[\\d.]+, map;dur=[\\d.]+, render;dur=[\\d.]+, total;dur=[\\d.]+");
+
+    //the audit writer thread would write the entries of the setup while a page is measured
+    @MockBean
+    private AuditService auditService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServerTimingFilter serverTimingFilter;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            User employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+            for (String code : new String[]{"PR001", "PR002", "PR003"}) {
+                Project project = persist(entityManager, project(code, manager));
+                persist(entityManager, task(project, employee, Status.OPEN));
+                persist(entityManager, task(project, employee, Status.COMPLETE));
+                entityManager.flush();
+                entityManager.persist(new ProjectTaskCounter(project.getId(), 1, 1));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"project_task_counters", "tasks", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void page_getsTheServerTimingHeaderWithTheStatementsOfTheRequest() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        MvcResult result = mockMvc.perform(get("/project/create").session(loggedIn(manager))).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+        String header = result.getResponse().getHeader("Server-Timing");
+        assertNotNull(header);
+        Matcher matcher = HEADER.matcher(header);
+        assertTrue(matcher.matches(), header);
+        long statements = statistics.getPrepareStatementCount() - statementsBefore;
+        assertTrue(statements > 0);
+        assertEquals(statements, Long.parseLong(matcher.group(1)), header);
+        //the buffered body is copied to the response after the header is set
+        assertTrue(result.getResponse().getContentAsString().contains("PR003"));
+    }
+
+    @Test
+    void exportDownload_isNeitherBufferedNorTimed() throws Exception {
+        MvcResult result = mockMvc.perform(get("/export/projects").session(loggedIn(manager))).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertNull(result.getResponse().getHeader("Server-Timing"));
+        assertTrue(result.getResponse().getContentAsString().contains("PR003"));
+
+        //the filter passes the response of a download on as it is, and wraps the one of a page
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        serverTimingFilter.doFilter(new MockHttpServletRequest("GET", "/export/tasks"), response, chain);
+        assertSame(response, chain.getResponse());
+        assertNull(response.getHeader("Server-Timing"));
+
+        chain = new MockFilterChain();
+        serverTimingFilter.doFilter(new MockHttpServletRequest("GET", "/project/create"), response, chain);
+        assertInstanceOf(ContentCachingResponseWrapper.class, chain.getResponse());
+        assertNotNull(response.getHeader("Server-Timing"));
+    }
+
+    @Test
+    void mapperCall_isAddedToTheTimingOfTheRequest() {
+        RequestTiming timing = RequestTiming.start();
+        try {
+            //the user mapper calls the role mapper, the nested call is part of the outer one
+            assertEquals("manager@cydeo.com", userMapper.convertToDto(manager).getUserName());
+        } finally {
+            RequestTiming.end();
+        }
+        assertTrue(timing.getMappingMillis() > 0);
+
+        //outside a sampled request the mapper runs untimed
+        assertNull(RequestTiming.current());
+        assertEquals("Manager", userMapper.convertToDto(manager).getRole().getDescription());
+    }
+
+    private static MockHttpSession loggedIn(User user) {
+        UserPrincipal principal = new UserPrincipal(user);
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())));
+        return session;
+    }
+}
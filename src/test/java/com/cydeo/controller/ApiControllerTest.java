@@ -0,0 +1,186 @@
+package com.cydeo.controller;
+
+import com.cydeo.config.CacheConfig;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.service.AuditService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The json api through the whole filter chain, with the http basic authentication of its security chain.
+ * The test does not run in a transaction, the users log in with the passwords the setup committed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ApiControllerTest {
+
+    private static final String PASSWORD = "Abc1";
+
+    //no audit writer thread writes the entries of the setup after the tables are cleaned up
+    @MockBean
+    private AuditService auditService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> completedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            User manager = persist(entityManager, loginUser("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            User employee = persist(entityManager, loginUser("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+            Project project = persist(entityManager, project("PR001", manager));
+            persist(entityManager, task(project, employee, Status.OPEN));
+            persist(entityManager, task(project, employee, Status.IN_PROGRESS));
+            for (int i = 0; i < 3; i++) {
+                Task completed = persist(entityManager, task(project, employee, Status.COMPLETE));
+                completedIds.add(0, completed.getId());//newest first, as the api answers them
+            }
+            entityManager.flush();
+            entityManager.persist(new ProjectTaskCounter(project.getId(), 3, 2));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"project_task_counters", "tasks", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+        //the next test saves the users again with other ids
+        cacheManager.getCache(CacheConfig.PRINCIPALS).clear();
+    }
+
+    @Test
+    void pendingTasks_keepOnlyTheRequestedFields() throws Exception {
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/pending").param("fields", "id,taskSubject")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].*", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].taskSubject").value("subject"))
+                .andExpect(jsonPath("$.content[1].id").isNumber())
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void unknownField_isRejected() throws Exception {
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/pending").param("fields", "id,passWord")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(as("manager@cydeo.com", get("/api/v1/projects").param("fields", "taskSubject")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pageSize_isCappedAtTheMaximum() throws Exception {
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/pending").param("size", "5000")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(100));
+        mockMvc.perform(as("manager@cydeo.com", get("/api/v1/projects").param("size", "5000")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(100))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].completeTaskCounts").value(3))
+                .andExpect(jsonPath("$.content[0].unfinishedTaskCounts").value(2));
+    }
+
+    @Test
+    void completedTasks_areReadPageByPageWithTheNextCursor() throws Exception {
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/completed").param("size", "2").param("fields", "id")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(completedIds.get(0).intValue(), completedIds.get(1).intValue())))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value(completedIds.get(1)));
+
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/completed").param("size", "2")
+                        .param("before", completedIds.get(1).toString())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(completedIds.get(2).intValue())))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void tasksAreForEmployees_projectsForManagers_andEverythingElseIsDenied() throws Exception {
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/tasks/pending"))).andExpect(status().isOk());
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v1/projects"))).andExpect(status().isForbidden());
+        mockMvc.perform(as("manager@cydeo.com", get("/api/v1/projects"))).andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].projectCode", containsInAnyOrder("PR001")));
+        mockMvc.perform(as("manager@cydeo.com", get("/api/v1/tasks/completed"))).andExpect(status().isForbidden());
+        mockMvc.perform(as("manager@cydeo.com", get("/api/v1/users"))).andExpect(status().isForbidden());
+        mockMvc.perform(as("employee@cydeo.com", get("/api/v2/tasks/pending"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void missingOrWrongPassword_isUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/pending")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/tasks/pending").header(HttpHeaders.AUTHORIZATION, basic("employee@cydeo.com", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private User loginUser(String userName, Role role) {
+        User user = user(userName, role);
+        user.setPassWord(passwordEncoder.encode(PASSWORD));
+        return user;
+    }
+
+    private static MockHttpServletRequestBuilder as(String userName, MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, basic(userName, PASSWORD));
+    }
+
+    private static String basic(String userName, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((userName + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,196 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.entity.AuditLog;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.AuditAction;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import com.cydeo.repository.AuditLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The audit log entries are queued after the commit, so the test methods do not run in a test transaction.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AuditServiceImpl.class, SimpleMeterRegistry.class, TaskServiceImpl.class, SecurityServiceImpl.class,
+        ProjectTaskCounterServiceImpl.class, TaskMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class,
+        RoleMapperImpl.class})
+class AuditServiceImplTest {
+
+    @Autowired
+    private AuditServiceImpl auditService;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User manager;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            project = persist(entityManager, project("PR001", manager));
+        });
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(manager), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        auditService.flush();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"audit_log", "project_task_counters", "tasks", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void committedChanges_areWrittenWithTheOldAndNewValues() throws InterruptedException {
+        updateProject(false);
+
+        List<AuditLog> history = history("Project", project.getId(), 2);
+        assertEquals(AuditAction.INSERT, history.get(0).getAction());
+        assertNull(history.get(0).getFieldName());
+        AuditLog statusChange = history.get(1);
+        assertEquals(AuditAction.UPDATE, statusChange.getAction());
+        assertEquals("projectStatus", statusChange.getFieldName());
+        assertEquals("OPEN", statusChange.getOldValue());
+        assertEquals("COMPLETE", statusChange.getNewValue());
+        assertEquals(manager.getId(), statusChange.getUserId());
+        //the role is not audited, the manager is
+        assertEquals(1, history("User", manager.getId(), 1).size());
+    }
+
+    @Test
+    void rolledBackChanges_areNotWritten() throws InterruptedException {
+        updateProject(true);
+
+        assertEquals(1, history("Project", project.getId(), 1).size());
+    }
+
+    @Test
+    void completeAndDeleteByProject_auditEveryTaskTheBulkUpdatesChange() throws InterruptedException {
+        Task open = addTask(Status.OPEN);
+        Task inProgress = addTask(Status.IN_PROGRESS);
+        Task completed = addTask(Status.COMPLETE);
+        ProjectDTO projectDTO = new ProjectDTO();
+        projectDTO.setId(project.getId());
+
+        taskService.completeByProject(projectDTO);
+        taskService.deleteByProject(projectDTO);
+
+        //the insert, the status change and the delete of the unfinished tasks
+        for (Task task : new Task[]{open, inProgress}) {
+            List<AuditLog> history = history("Task", task.getId(), 3);
+            assertEquals(3, history.size());
+            assertEquals("taskStatus", history.get(1).getFieldName());
+            assertEquals(task.getTaskStatus().name(), history.get(1).getOldValue());
+            assertEquals("COMPLETE", history.get(1).getNewValue());
+            assertEquals(manager.getId(), history.get(1).getUserId());
+            assertEquals("isDeleted", history.get(2).getFieldName());
+            assertEquals("true", history.get(2).getNewValue());
+        }
+        //the completed task is not changed by completeByProject, only deleted
+        List<AuditLog> history = history("Task", completed.getId(), 2);
+        assertEquals(2, history.size());
+        assertEquals("isDeleted", history.get(1).getFieldName());
+    }
+
+    @Test
+    void fullQueue_dropsTheEntriesAndCountsThem() {
+        //not started, nothing takes the entries from the queue of one entry
+        AuditServiceImpl fullService = new AuditServiceImpl(auditLogRepository, meterRegistry, 1, 100, 0);
+        for (int i = 0; i < 3; i++) {
+            fullService.record(new AuditLog("Project", project.getId(), AuditAction.UPDATE, "projectDetail",
+                    "old", "new", manager.getId(), LocalDateTime.now()));
+        }
+
+        assertEquals(2, meterRegistry.counter("audit.records.dropped", "reason", "queue_full").count());
+    }
+
+    private void updateProject(boolean rollback) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.find(Project.class, project.getId()).setProjectStatus(Status.COMPLETE);
+            entityManager.flush();
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    //the background writer may still be writing a batch when flush() returns, so the history is read until it is complete
+    private List<AuditLog> history(String entityType, Long entityId, int expectedSize) throws InterruptedException {
+        auditService.flush();
+        List<AuditLog> history = Collections.emptyList();
+        for (int attempt = 0; attempt < 50 && history.size() < expectedSize; attempt++) {
+            history = auditLogRepository.findAllByEntityTypeAndEntityIdOrderById(entityType, entityId);
+            if (history.size() < expectedSize) {
+                Thread.sleep(20);
+            }
+        }
+        return history;
+    }
+
+    private Task addTask(Status status) {
+        return transactionTemplate.execute(transactionStatus -> {
+            return persist(entityManager, task(entityManager.find(Project.class, project.getId()),
+                    entityManager.find(User.class, manager.getId()), status));
+        });
+    }
+}
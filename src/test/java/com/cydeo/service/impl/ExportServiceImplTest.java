@@ -0,0 +1,112 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.ExportFormat;
+import com.cydeo.enums.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ExportServiceImpl.class)
+class ExportServiceImplTest {
+
+    @Autowired
+    private ExportServiceImpl exportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User employee;
+
+    @BeforeEach
+    void setUp() {
+        User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+        employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+        Project payroll = project("PR001", manager);
+        payroll.setProjectName("Payroll");
+        payroll.setEndDate(LocalDate.of(2023, 12, 31));
+        persist(entityManager, payroll);
+        Project audit = persist(entityManager, project("PR002", manager));
+        for (int i = 0; i < 50; i++) {
+            persist(entityManager, exportedTask(payroll, "payroll " + i));
+        }
+        persist(entityManager, exportedTask(audit, "audit"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void exportTasksByProject_writesAHeaderAndOneLinePerTask() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        exportService.exportTasksByProject("PR001", ExportFormat.CSV, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(51, lines.length);
+        assertEquals("id,projectCode,projectName,employee,taskSubject,taskDetail,taskStatus,assignedDate", lines[0]);
+        assertTrue(lines[1].endsWith(",PR001,Payroll,employee@cydeo.com,\"payroll 0\",detail,OPEN,2023-01-02"), lines[1]);
+        //the exported tasks are detached, only the project and the users are left in the persistence context
+        assertTrue(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount() < 10);
+    }
+
+    @Test
+    void exportTasksByEmployee_writesAJsonArray() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        exportService.exportTasksByEmployee(employee.getUserName(), ExportFormat.JSON, outputStream);
+
+        JsonNode tasks = objectMapper.readTree(outputStream.toByteArray());
+        assertEquals(51, tasks.size());
+        assertEquals("PR002", tasks.get(50).get("projectCode").asText());
+        assertEquals("2023-01-02", tasks.get(50).get("assignedDate").asText());
+    }
+
+    @Test
+    void exportProjects_writesTheManagerOfEveryProject() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        exportService.exportProjects(ExportFormat.CSV, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains(",PR001,Payroll,manager@cydeo.com,2023-01-01,2023-12-31,"), lines[1]);
+    }
+
+    private Task exportedTask(Project project, String subject) {
+        Task task = task(project, employee, Status.OPEN);
+        task.setTaskSubject(subject);
+        task.setAssignedDate(LocalDate.of(2023, 1, 2));
+        return task;
+    }
+}
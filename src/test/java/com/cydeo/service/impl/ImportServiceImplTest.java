@@ -0,0 +1,162 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ImportResult;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.ImportFormat;
+import com.cydeo.enums.ImportType;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "import.chunk-size=2")
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({ImportServiceImpl.class, RoleServiceImpl.class, ProjectTaskCounterServiceImpl.class, BCryptPasswordEncoder.class, TaskMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class ImportServiceImplTest {
+
+    @Autowired
+    private ImportServiceImpl importService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User manager;
+    private User employee;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        persist(entityManager, new Role("Admin"));
+        Role managerRole = persist(entityManager, new Role("Manager"));
+        Role employeeRole = persist(entityManager, new Role("Employee"));
+        manager = persist(entityManager, user("manager@cydeo.com", managerRole));
+        employee = persist(entityManager, user("employee@cydeo.com", employeeRole));
+
+        project = project("PR001", manager);
+        project.setProjectName("Onboarding");
+        persist(entityManager, project);
+        entityManager.flush();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(manager), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void importRecords_savesTheValidUsersAndReportsTheRejectedRows() {
+        String csv = "firstName,lastName,userName,passWord,phone,gender,role\n" +
+                "Mary,Smith,mary@cydeo.com,Abc1,1234567890,female,Employee\n" +
+                "John,Doe,john@cydeo.com,Abc1,1234567890,MALE,manager\n" +
+                "Bad,Email,not-an-email,Abc1,1234567890,MALE,Employee\n" +
+                "Same,Name,employee@cydeo.com,Abc1,1234567890,MALE,Employee\n" +
+                "No,Role,norole@cydeo.com,Abc1,1234567890,MALE,Tester\n" +
+                "Ann,Lee,ann@cydeo.com,Abc1,1234567890,FEMALE,Admin\n";
+
+        ImportResult result = importService.importRecords(ImportType.USERS, ImportFormat.CSV, stream(csv));
+
+        assertEquals(6, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertNull(result.getFailure());
+        assertTrue(result.getErrors().get(0).startsWith("Row 3: userName"), result.getErrors().get(0));
+        assertEquals("Row 4: user employee@cydeo.com already exists", result.getErrors().get(1));
+        assertEquals("Row 5: unknown role tester", result.getErrors().get(2));
+
+        User mary = entityManager.getEntityManager()
+                .createQuery("SELECT u FROM User u WHERE u.userName = 'mary@cydeo.com'", User.class).getSingleResult();
+        assertEquals("Employee", mary.getRole().getDescription());
+        assertTrue(new BCryptPasswordEncoder().matches("Abc1", mary.getPassWord()));
+    }
+
+    @Test
+    void importRecords_resolvesTheProjectAndTheEmployeeOfTheTasks() {
+        String json = "[" +
+                "{\"projectCode\":\"PR001\",\"employee\":\"employee@cydeo.com\",\"taskSubject\":\"Laptop\",\"taskDetail\":\"Order a laptop\"}," +
+                "{\"projectCode\":\"PR001\",\"employee\":\"employee@cydeo.com\",\"taskSubject\":\"Badge\",\"taskDetail\":\"Print a badge\"," +
+                "\"taskStatus\":\"in progress\",\"assignedDate\":\"2023-02-01\"}," +
+                "{\"projectCode\":\"PR404\",\"employee\":\"employee@cydeo.com\",\"taskSubject\":\"x\",\"taskDetail\":\"x\"}," +
+                "{\"projectCode\":\"PR001\",\"employee\":\"manager@cydeo.com\",\"taskSubject\":\"x\",\"taskDetail\":\"x\"}," +
+                "{\"projectCode\":\"PR001\",\"employee\":\"employee@cydeo.com\",\"taskSubject\":\"Desk\",\"taskDetail\":\"Set up a desk\"}" +
+                "]";
+
+        ImportResult result = importService.importRecords(ImportType.TASKS, ImportFormat.JSON, stream(json));
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals("Row 3: unknown project PR404", result.getErrors().get(0));
+        assertEquals("Row 4: user manager@cydeo.com is not a Employee", result.getErrors().get(1));
+
+        List<Task> tasks = entityManager.getEntityManager()
+                .createQuery("SELECT t FROM Task t WHERE t.project.id = ?1 ORDER BY t.id", Task.class)
+                .setParameter(1, project.getId()).getResultList();
+        assertEquals(3, tasks.size());
+        assertEquals(employee.getId(), tasks.get(0).getAssignedEmployee().getId());
+        assertEquals(Status.OPEN, tasks.get(0).getTaskStatus());
+        assertEquals(Status.IN_PROGRESS, tasks.get(1).getTaskStatus());
+        assertEquals(LocalDate.of(2023, 2, 1), tasks.get(1).getAssignedDate());
+        //the imported tasks are added to the counter of the project
+        assertEquals(3, entityManager.find(ProjectTaskCounter.class, project.getId()).getUnfinishedCount());
+    }
+
+    @Test
+    void importRecords_keepsTheRowsBeforeAMalformedPart() {
+        String csv = "projectCode,projectName,manager,startDate,endDate,projectDetail\n" +
+                "PR002,Payroll,manager@cydeo.com,2023-01-01,2023-06-30,Payroll migration\n" +
+                "PR003,Onboarding,manager@cydeo.com,2023-01-01,2023-06-30,Duplicated name\n" +
+                "PR004,Audit,employee@cydeo.com,2023-01-01,2023-06-30,Not a manager\n" +
+                "PR005,Hiring,manager@cydeo.com,2023-01-01,2023-06-30,Too,many,columns\n";
+
+        ImportResult result = importService.importRecords(ImportType.PROJECTS, ImportFormat.CSV, stream(csv));
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertTrue(result.getFailure().startsWith("The file could not be read after row 3"), result.getFailure());
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,164 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ProjectOptionDTO;
+import com.cydeo.dto.ProjectSummaryDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The test methods do not run in a test transaction, so every service call opens its own transaction
+ * and borrows its own connection, the way it does in a request.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProjectServiceImpl.class, TaskServiceImpl.class, SecurityServiceImpl.class, ProjectTaskCounterServiceImpl.class, TaskMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class ProjectServiceImplTest {
+
+    @Autowired
+    private ProjectServiceImpl projectService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        User manager = transactionTemplate.execute(status -> {
+            User user = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            User employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+            for (int i = 1; i <= 3; i++) {
+                Project project = persist(entityManager, project("PR00" + i, user));
+                for (int j = 0; j < 5; j++) {
+                    persist(entityManager, task(project, employee, j < 2 ? Status.COMPLETE : Status.OPEN));
+                }
+                entityManager.persist(new ProjectTaskCounter(project.getId(), 2, 3));
+            }
+            entityManager.flush();
+            return user;
+        });
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(manager), null, Collections.emptyList()));
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"project_task_counters", "tasks", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void listAllProjectDetails_readsThePageAndTheCountsInOneTransaction() {
+        Page<ProjectSummaryDTO> projects = projectService.listAllProjectDetails(PageRequest.of(0, 2));
+
+        assertEquals(3, projects.getTotalElements());
+        assertEquals(2, projects.getContent().get(0).getCompleteTaskCounts());
+        assertEquals(3, projects.getContent().get(0).getUnfinishedTaskCounts());
+        //the page, the count and the task counters share one connection
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getConnectCount());
+        assertEquals(1, statistics.getTransactionCount());
+    }
+
+    @Test
+    void complete_updatesTheProjectAndItsTasksInOneTransaction() {
+        projectService.complete("PR001");
+
+        //the project with its manager, the update of the project, the locked statuses of the tasks for the audit log,
+        //one bulk update of the tasks and of the counter
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getConnectCount());
+        assertEquals(1, statistics.getTransactionCount());
+
+        Page<ProjectSummaryDTO> projects = projectService.listAllProjectDetails(PageRequest.of(0, 3));
+        assertEquals(5, projects.getContent().get(0).getCompleteTaskCounts());
+        assertEquals(Status.COMPLETE, projects.getContent().get(0).getProjectStatus());
+        assertEquals(2, projects.getContent().get(1).getCompleteTaskCounts());
+    }
+
+    @Test
+    void delete_softDeletesTheProjectAndItsTasksInOneTransaction() {
+        projectService.delete("PR002");
+
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getConnectCount());
+        assertEquals(1, statistics.getTransactionCount());
+
+        Page<ProjectSummaryDTO> projects = projectService.listAllProjectDetails(PageRequest.of(0, 3));
+        assertEquals(2, projects.getTotalElements());
+    }
+
+    @Test
+    void listAllProjectOptions_readsTheCodesAndNamesWithOneStatement() {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("UPDATE projects SET is_deleted = true WHERE project_code = 'PR002'").executeUpdate());
+        statistics.clear();
+
+        List<ProjectOptionDTO> projects = projectService.listAllProjectOptions();
+
+        assertEquals(Arrays.asList("PR001", "PR003"), projects.stream().map(ProjectOptionDTO::getProjectCode).collect(Collectors.toList()));
+        assertEquals("PR001 name", projects.get(0).getProjectName());
+        //no manager is loaded with the projects
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
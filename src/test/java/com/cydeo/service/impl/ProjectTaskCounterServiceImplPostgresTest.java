@@ -0,0 +1,193 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.PostgresTestDatabase;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.repository.ProjectTaskCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The counter writes of concurrent transactions on postgres (see PostgresTestDatabase),
+ * where the upsert is an INSERT ... ON CONFLICT DO UPDATE and the repair locks the counter row with SELECT ... FOR UPDATE.
+ * The test methods do not run in a test transaction, every write has its own transaction and connection.
+ * A write is blocked when it has not returned a while after it started.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("com.cydeo.PostgresTestDatabase#isAvailable")
+@Import({ProjectTaskCounterServiceImpl.class})
+class ProjectTaskCounterServiceImplPostgresTest {
+
+    private static final int THREADS = 8;
+    private static final long BLOCKED_MILLIS = 500;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private ProjectTaskCounterServiceImpl taskCounterService;
+
+    @Autowired
+    private ProjectTaskCounterRepository counterRepository;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService executor;
+    private Long projectId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newFixedThreadPool(THREADS);
+        transactionTemplate.executeWithoutResult(status -> {
+            User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            projectId = persist(entityManager, project("PR001", manager)).getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"project_task_counters", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void add_concurrentFirstTasksOfAProjectAllCreateOrUpdateTheOneCounter() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Status status = i % 2 == 0 ? Status.COMPLETE : Status.OPEN;
+            futures.add(executor.submit(() -> {
+                start.await();
+                taskCounterService.add(projectId, status, 1);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertCounts(THREADS / 2, THREADS / 2);
+    }
+
+    @Test
+    void add_waitsForTheUncommittedCounterOfAnotherTransactionAndAddsToIt() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                taskCounterService.add(projectId, Status.COMPLETE, 1);
+                inserted.countDown();
+                await(commit);
+            });
+            return null;
+        });
+        inserted.await(30, TimeUnit.SECONDS);
+
+        Future<?> second = executor.submit(() -> {
+            taskCounterService.add(projectId, Status.OPEN, 2);
+            return null;
+        });
+        Thread.sleep(BLOCKED_MILLIS);
+        assertFalse(second.isDone(), "the conflicting insert waits for the first transaction");
+        commit.countDown();
+        first.get(30, TimeUnit.SECONDS);
+        second.get(30, TimeUnit.SECONDS);
+
+        assertCounts(1, 2);
+    }
+
+    @Test
+    void findByIdForUpdate_blocksTheCounterWritesUntilTheRepairCommits() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> entityManager.persist(new ProjectTaskCounter(projectId, 0, 1)));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        //sets the counts as the repair of the reconciliation does, to the counted tasks and not by adding to them
+        Future<?> repair = executor.submit(() -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                ProjectTaskCounter counter = counterRepository.findByIdForUpdate(projectId).orElseThrow();
+                locked.countDown();
+                await(commit);
+                counter.setCompleteCount(2);
+                counter.setUnfinishedCount(3);
+            });
+            return null;
+        });
+        locked.await(30, TimeUnit.SECONDS);
+
+        Future<?> write = executor.submit(() -> {
+            taskCounterService.add(projectId, Status.OPEN, 1);
+            return null;
+        });
+        Thread.sleep(BLOCKED_MILLIS);
+        assertFalse(write.isDone(), "the task write waits for the locked counter");
+        commit.countDown();
+        repair.get(30, TimeUnit.SECONDS);
+        write.get(30, TimeUnit.SECONDS);
+
+        //the task written during the repair is added to the repaired counts, it is not lost
+        assertCounts(2, 4);
+    }
+
+    private void assertCounts(int complete, int unfinished) {
+        ProjectTaskCounter counter = transactionTemplate.execute(status -> entityManager.find(ProjectTaskCounter.class, projectId));
+        assertEquals(complete, counter.getCompleteCount(), "complete");
+        assertEquals(unfinished, counter.getUnfinishedCount(), "unfinished");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProjectTaskCounterServiceImpl.class, TaskServiceImpl.class, SecurityServiceImpl.class, TaskMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class ProjectTaskCounterServiceImplTest {
+
+    @Autowired
+    private ProjectTaskCounterServiceImpl taskCounterService;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User manager;
+    private User employee;
+    private Project payroll;
+    private Project audit;
+
+    @BeforeEach
+    void setUp() {
+        manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+        employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+        payroll = persist(entityManager, project("PR001", manager));
+        audit = persist(entityManager, project("PR002", manager));
+        entityManager.flush();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(manager), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void taskWrites_keepTheCountersInStep() {
+        taskCounterService.createCounter(payroll.getId());
+        for (int i = 0; i < 4; i++) {
+            taskService.save(taskDTO(payroll));
+        }
+        Long[] ids = entityManager.getEntityManager()
+                .createQuery("SELECT t.id FROM Task t ORDER BY t.id", Long.class).getResultList().toArray(new Long[0]);
+
+        taskService.updateStatus(statusDTO(ids[0], Status.COMPLETE));
+        taskService.updateStatus(statusDTO(ids[1], Status.IN_PROGRESS));
+        taskService.delete(ids[2]);
+        TaskDTO moved = taskService.findById(ids[3]);
+        moved.setProject(projectDTO(audit));
+        taskService.update(moved);
+
+        assertCounts(payroll, 1, 1);
+        //the audit project had no counter, it gets one with its first task
+        assertCounts(audit, 0, 1);
+        assertEquals(0, taskCounterService.reconcile());
+    }
+
+    @Test
+    void reconcile_repairsDriftedAndMissingCounters() {
+        persist(entityManager, task(payroll, employee, Status.COMPLETE));
+        persist(entityManager, task(payroll, employee, Status.OPEN));
+        persist(entityManager, task(audit, employee, Status.OPEN));
+        entityManager.persist(new ProjectTaskCounter(payroll.getId(), 5, 0));
+        entityManager.flush();
+        assertNull(entityManager.find(ProjectTaskCounter.class, audit.getId()));
+
+        assertEquals(2, taskCounterService.reconcile());
+
+        assertCounts(payroll, 1, 1);
+        assertCounts(audit, 0, 1);
+        assertEquals(0, taskCounterService.reconcile());
+    }
+
+    @Test
+    void add_keepsANegativeCountOfAMissingCounterForTheReconciliation() {
+        persist(entityManager, task(audit, employee, Status.OPEN));
+        entityManager.flush();
+
+        //a task removed from a project without a counter, the drift is not hidden by a zero count
+        taskCounterService.add(audit.getId(), Status.OPEN, -1);
+        taskCounterService.add(audit.getId(), Status.COMPLETE, 1);
+        assertCounts(audit, 1, -1);
+
+        assertEquals(1, taskCounterService.reconcile());
+        assertCounts(audit, 0, 1);
+    }
+
+    private void assertCounts(Project project, int complete, int unfinished) {
+        entityManager.flush();
+        entityManager.clear();
+        ProjectTaskCounter counter = entityManager.find(ProjectTaskCounter.class, project.getId());
+        assertEquals(complete, counter.getCompleteCount(), "complete");
+        assertEquals(unfinished, counter.getUnfinishedCount(), "unfinished");
+    }
+
+    private TaskDTO taskDTO(Project project) {
+        TaskDTO task = new TaskDTO();
+        task.setProject(projectDTO(project));
+        UserDTO assignedEmployee = new UserDTO();
+        assignedEmployee.setId(employee.getId());
+        task.setAssignedEmployee(assignedEmployee);
+        task.setTaskSubject("subject");
+        task.setTaskDetail("detail");
+        return task;
+    }
+
+    //the status form carries the version, the project and the status the task was read with
+    private TaskDTO statusDTO(Long id, Status status) {
+        TaskDTO task = taskService.findById(id);
+        task.setTaskStatus(status);
+        return task;
+    }
+
+    private ProjectDTO projectDTO(Project project) {
+        ProjectDTO projectDTO = new ProjectDTO();
+        projectDTO.setId(project.getId());
+        projectDTO.setProjectCode(project.getProjectCode());
+        return projectDTO;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.BaseEntity;
+import com.cydeo.enums.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PurgeServiceImpl.class, SimpleMeterRegistry.class})
+class PurgeServiceImplTest {
+
+    @Autowired
+    private PurgeServiceImpl purgeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User manager;
+    private User deletedEmployee;
+    private User employee;
+    private Project project;
+    private Task recentlyDeletedTask;
+
+    @BeforeEach
+    void setUp() {
+        Role managerRole = persist(entityManager, new Role("Manager"));
+        Role employeeRole = persist(entityManager, new Role("Employee"));
+        manager = persist(entityManager, user("manager@cydeo.com", managerRole));
+        User deletedManager = persist(entityManager, deleted(user("old-manager@cydeo.com", managerRole)));
+        deletedEmployee = persist(entityManager, deleted(user("old-employee@cydeo.com", employeeRole)));
+        employee = persist(entityManager, user("employee@cydeo.com", employeeRole));
+
+        project = persist(entityManager, project("PR001", manager));
+        persist(entityManager, task(project, deletedEmployee, Status.OPEN));//still assigned to the deleted employee
+        recentlyDeletedTask = persist(entityManager, deleted(task(project, employee, Status.OPEN)));
+
+        Project deletedProject = persist(entityManager, deleted(project("PR002", deletedManager)));
+        entityManager.persist(new ProjectTaskCounter(deletedProject.getId(), 0, 0));
+        for (int i = 0; i < 3; i++) {
+            persist(entityManager, deleted(task(deletedProject, employee, Status.OPEN)));
+        }
+        entityManager.flush();
+
+        //every row but one task was last changed, or deleted, a year ago
+        for (String table : new String[]{"tasks", "projects", "users"}) {
+            entityManager.getEntityManager()
+                    .createNativeQuery("UPDATE " + table + " SET last_update_date_time = ?1 WHERE id <> ?2")
+                    .setParameter(1, LocalDateTime.now().minusYears(1))
+                    .setParameter(2, recentlyDeletedTask.getId())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void purge_deletesTheRowsDeletedBeforeTheRetentionPeriod() {
+        //the three tasks and the project deleted a year ago, then the manager of the project
+        assertEquals(5, purgeService.purge());
+
+        assertEquals(3, meterRegistry.counter("purge.rows.deleted", "table", "tasks").count());
+        //the recently deleted task is kept, so is the deleted employee who still has a task
+        assertEquals(2, ids("tasks").size());
+        assertEquals(Collections.singletonList(project.getId()), ids("projects"));
+        assertEquals(Arrays.asList(manager.getId(), deletedEmployee.getId(), employee.getId()), ids("users"));
+        assertEquals(0, ids("project_task_counters").size());
+
+        assertEquals(0, purgeService.purge());
+    }
+
+    //native, the deleted rows are not visible to the JPQL queries
+    private List<Long> ids(String table) {
+        String id = table.equals("project_task_counters") ? "project_id" : "id";
+        List<?> ids = entityManager.getEntityManager()
+                .createNativeQuery("SELECT " + id + " FROM " + table + " ORDER BY " + id).getResultList();
+        return ids.stream().map(value -> ((Number) value).longValue()).collect(Collectors.toList());
+    }
+
+    private <T extends BaseEntity> T deleted(T entity) {
+        entity.setIsDeleted(true);
+        return entity;
+    }
+}
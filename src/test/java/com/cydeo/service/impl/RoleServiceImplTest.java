@@ -0,0 +1,95 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.config.CacheConfig;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.entity.Role;
+import com.cydeo.mapper.RoleMapperImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static com.cydeo.TestFixtures.persist;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The second-level cache is filled with committed rows only,
+ * so the roles are saved in their own transaction instead of a rolled back test transaction.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CacheConfig.class, RoleServiceImpl.class, RoleMapperImpl.class})
+class RoleServiceImplTest {
+
+    @Autowired
+    private RoleServiceImpl roleService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private Role employee;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        employee = transactionTemplate.execute(status -> {
+            persist(entityManager, new Role("Manager"));
+            return persist(entityManager, new Role("Employee"));
+        });
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("DELETE FROM roles").executeUpdate();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void findById_readsTheRoleFromTheSecondLevelCache() {
+        roleService.findById(employee.getId());
+        statistics.clear();
+
+        RoleDTO role = roleService.findById(employee.getId());
+
+        assertEquals("Employee", role.getDescription());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void listAllRoles_runsTheQueryOnce() {
+        assertEquals(2, roleService.listAllRoles().size());
+        statistics.clear();
+
+        assertEquals(2, roleService.listAllRoles().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,172 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.PostgresTestDatabase;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The archive job and the status changes on the tasks table partitioned by V7, which only exists in postgres
+ * (see PostgresTestDatabase). The archive batches hold one task, so the job runs batch after batch.
+ * The partition of a row is read from its tableoid, the copy of the existing tasks by V7 is in MigrationsPostgresTest.
+ */
+@DataJpaTest(properties = "task-archive.batch-size=1")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.cydeo.PostgresTestDatabase#isAvailable")
+@Import({TaskArchiveServiceImpl.class, TaskServiceImpl.class, SecurityServiceImpl.class, ProjectTaskCounterServiceImpl.class,
+        TaskMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class TaskArchiveServiceImplPostgresTest {
+
+    private static final String ACTIVE = "tasks_active";
+    private static final String ARCHIVE = "tasks_archive";
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private TaskArchiveServiceImpl taskArchiveService;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Task open;
+    private Task completed;
+    private Task recentlyCompleted;
+    private Task deleted;
+
+    @BeforeEach
+    void setUp() {
+        User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+        User employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+        Project project = persist(entityManager, project("PR001", manager));
+        open = persist(entityManager, task(project, employee, Status.OPEN));
+        completed = persist(entityManager, task(project, employee, Status.COMPLETE));
+        recentlyCompleted = persist(entityManager, task(project, employee, Status.COMPLETE));
+        deleted = task(project, employee, Status.IN_PROGRESS);
+        deleted.setIsDeleted(true);
+        persist(entityManager, deleted);
+        entityManager.flush();
+        //every task but the recently completed one was last changed a month ago
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE tasks SET last_update_date_time = ?1 WHERE id IN (?2, ?3, ?4)")
+                .setParameter(1, LocalDateTime.now().minusMonths(1))
+                .setParameter(2, open.getId())
+                .setParameter(3, completed.getId())
+                .setParameter(4, deleted.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(employee), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void archive_movesTheOldCompletedAndDeletedTasksToTheArchivePartition() {
+        assertEquals(2, taskArchiveService.archive());
+
+        Map<Long, String> expected = new LinkedHashMap<>();
+        expected.put(open.getId(), ACTIVE);
+        expected.put(completed.getId(), ARCHIVE);
+        expected.put(recentlyCompleted.getId(), ACTIVE);
+        expected.put(deleted.getId(), ARCHIVE);
+        assertEquals(expected, partitions());
+        assertEquals(0, taskArchiveService.archive());
+        //the pending tasks are read from the active partition, the archive page from both
+        assertEquals(1, taskService.listAllTasksByStatusIsNot(Status.COMPLETE).size());
+        assertEquals(2, taskService.listAllTasksByStatus(Status.COMPLETE, null, 10).getNumberOfElements());
+    }
+
+    @Test
+    void updateStatus_movesAnArchivedTaskBackToTheActivePartition() {
+        taskArchiveService.archive();
+
+        TaskDTO task = taskService.findById(completed.getId());
+        taskService.updateStatus(task);
+        //the status is not changed, the task stays archived
+        assertEquals(ARCHIVE, partitions().get(completed.getId()));
+
+        task = taskService.findById(completed.getId());
+        task.setTaskStatus(Status.IN_PROGRESS);
+        taskService.updateStatus(task);
+
+        assertEquals(ACTIVE, partitions().get(completed.getId()));
+        assertEquals(Status.IN_PROGRESS, taskService.findById(completed.getId()).getTaskStatus());
+        assertEquals(2, taskService.listAllTasksByStatusIsNot(Status.COMPLETE).size());
+    }
+
+    @Test
+    void update_movesAnArchivedTaskBackOnlyWhenItsStatusChanges() {
+        taskArchiveService.archive();
+
+        TaskDTO task = taskService.findById(completed.getId());
+        task.setTaskSubject("changed subject");
+        taskService.update(task);
+        entityManager.flush();
+        assertEquals(ARCHIVE, partitions().get(completed.getId()));
+
+        entityManager.clear();
+        task = taskService.findById(completed.getId());
+        task.setTaskStatus(Status.OPEN);
+        taskService.update(task);
+        entityManager.flush();
+
+        assertEquals(ACTIVE, partitions().get(completed.getId()));
+        entityManager.clear();
+        assertEquals("changed subject", taskService.findById(completed.getId()).getTaskSubject());
+    }
+
+    //the partition of every task, native, the deleted tasks are not visible to the JPQL queries
+    private Map<Long, String> partitions() {
+        Map<Long, String> partitions = new LinkedHashMap<>();
+        for (Object row : entityManager.getEntityManager()
+                .createNativeQuery("SELECT id, CAST(CAST(tableoid AS regclass) AS text) FROM tasks ORDER BY id").getResultList()) {
+            Object[] columns = (Object[]) row;
+            partitions.put(((Number) columns[0]).longValue(), (String) columns[1]);
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,131 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TaskArchiveServiceImpl.class, TaskServiceImpl.class, SecurityServiceImpl.class, ProjectTaskCounterServiceImpl.class,
+        TaskMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class TaskArchiveServiceImplTest {
+
+    @Autowired
+    private TaskArchiveServiceImpl taskArchiveService;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Task open;
+    private Task completed;
+    private Task recentlyCompleted;
+    private Task deleted;
+
+    @BeforeEach
+    void setUp() {
+        User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+        User employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+        Project project = persist(entityManager, project("PR001", manager));
+        open = persist(entityManager, task(project, employee, Status.OPEN));
+        completed = persist(entityManager, task(project, employee, Status.COMPLETE));
+        recentlyCompleted = persist(entityManager, task(project, employee, Status.COMPLETE));
+        deleted = persist(entityManager, task(project, employee, Status.IN_PROGRESS));
+        deleted.setIsDeleted(true);
+        entityManager.flush();
+        //every task but the recently completed one was last changed a month ago
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE tasks SET last_update_date_time = ?1 WHERE id <> ?2")
+                .setParameter(1, LocalDateTime.now().minusMonths(1))
+                .setParameter(2, recentlyCompleted.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(employee), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void archive_movesTheOldCompletedAndDeletedTasks() {
+        assertEquals(2, taskArchiveService.archive());
+
+        assertEquals(Arrays.asList(completed.getId(), deleted.getId()), archivedIds());
+        //nothing is left to move
+        assertEquals(0, taskArchiveService.archive());
+        //the pending tasks are read from the active partition, the archive page from both
+        assertEquals(1, taskService.listAllTasksByStatusIsNot(Status.COMPLETE).size());
+        assertEquals(2, taskService.listAllTasksByStatus(Status.COMPLETE, null, 10).getNumberOfElements());
+    }
+
+    @Test
+    void updateStatus_bringsAnArchivedTaskBackToTheActivePartition() {
+        taskArchiveService.archive();
+
+        TaskDTO task = taskService.findById(completed.getId());
+        task.setTaskStatus(Status.IN_PROGRESS);
+        taskService.updateStatus(task);
+
+        assertEquals(Collections.singletonList(deleted.getId()), archivedIds());
+        assertEquals(2, taskService.listAllTasksByStatusIsNot(Status.COMPLETE).size());
+    }
+
+    @Test
+    void updateWithoutAStatusChange_keepsAnArchivedTaskInTheArchivePartition() {
+        taskArchiveService.archive();
+
+        TaskDTO task = taskService.findById(completed.getId());
+        task.setTaskSubject("changed subject");
+        taskService.update(task);
+        entityManager.flush();
+        task = taskService.findById(completed.getId());
+        taskService.updateStatus(task);
+
+        assertEquals(Arrays.asList(completed.getId(), deleted.getId()), archivedIds());
+    }
+
+    //native, the deleted tasks are not visible to the JPQL queries
+    private List<Long> archivedIds() {
+        List<?> ids = entityManager.getEntityManager()
+                .createNativeQuery("SELECT id FROM tasks WHERE archived = true ORDER BY id").getResultList();
+        return ids.stream().map(id -> ((Number) id).longValue()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,204 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import com.cydeo.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Several users submit a form of the same task at the same time, every one of them opened it
+ * with the same version. Only one change may be written, the others must be rejected
+ * instead of overwriting it, and the task counters must still match the tasks.
+ * The test methods do not run in a test transaction, every request has its own transaction and connection.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TaskServiceImpl.class, AuditServiceImpl.class, SimpleMeterRegistry.class, SecurityServiceImpl.class,
+        ProjectTaskCounterServiceImpl.class, TaskMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class,
+        RoleMapperImpl.class})
+class TaskServiceImplConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private ProjectTaskCounterServiceImpl taskCounterService;
+
+    @Autowired
+    private AuditServiceImpl auditService;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    //the shared entity manager, bound to the transaction of the transaction template
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User employee;
+    private Long taskId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+            employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+            Project project = persist(entityManager, project("PR001", manager));
+            taskId = persist(entityManager, task(project, employee, Status.OPEN)).getId();
+            entityManager.persist(new ProjectTaskCounter(project.getId(), 0, 1));
+            entityManager.flush();
+        });
+        SecurityContextHolder.getContext().setAuthentication(authentication());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : new String[]{"audit_log", "project_task_counters", "tasks", "projects", "users", "roles"}) {
+                entityManager.createNativeQuery("DELETE FROM " + table).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void updateStatus_acceptsOneOfTheConcurrentChanges() throws Exception {
+        List<Object> results = runConcurrently(form -> {
+            form.setTaskStatus(Status.COMPLETE);
+            taskService.updateStatus(form);
+        });
+
+        assertEquals(1, results.stream().filter(result -> result == null).count());
+        assertEquals(THREADS - 1, results.stream()
+                .filter(result -> result instanceof ObjectOptimisticLockingFailureException).count());
+        assertEquals(1, currentVersion());
+        assertEquals(0, taskCounterService.reconcile());
+        //the status is changed by a bulk update, the service writes the audit entry of the accepted change
+        auditService.flush();
+        assertEquals(1, auditLogRepository.findAllByEntityTypeAndEntityIdOrderById("Task", taskId).stream()
+                .filter(auditLog -> "taskStatus".equals(auditLog.getFieldName())).count());
+    }
+
+    @Test
+    void update_acceptsOneOfTheConcurrentChanges() throws Exception {
+        List<Object> results = runConcurrently(form -> {
+            form.setTaskSubject("subject of " + Thread.currentThread().getName());
+            taskService.update(form);
+        });
+
+        assertEquals(1, results.stream().filter(result -> result == null).count());
+        assertEquals(THREADS - 1, results.stream()
+                .filter(result -> result instanceof ObjectOptimisticLockingFailureException).count());
+        assertEquals(1, currentVersion());
+        assertEquals(0, taskCounterService.reconcile());
+    }
+
+    @Test
+    void update_rejectsAFormOpenedBeforeTheLastChange() {
+        TaskDTO staleForm = taskService.findById(taskId);
+        TaskDTO form = taskService.findById(taskId);
+        form.setTaskStatus(Status.IN_PROGRESS);
+        taskService.updateStatus(form);
+
+        staleForm.setTaskSubject("overwritten");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> taskService.update(staleForm));
+        assertEquals(Status.IN_PROGRESS, taskService.findById(taskId).getTaskStatus());
+        assertEquals("subject", taskService.findById(taskId).getTaskSubject());
+    }
+
+    //every thread submits its own copy of the same form, they are released together
+    private List<Object> runConcurrently(Consumer<TaskDTO> request) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                TaskDTO form = taskService.findById(taskId);
+                futures.add(executor.submit(() -> {
+                    SecurityContext context = SecurityContextHolder.createEmptyContext();
+                    context.setAuthentication(authentication());
+                    SecurityContextHolder.setContext(context);
+                    try {
+                        start.await();
+                        request.accept(form);
+                        return null;
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        return e;
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long currentVersion() {
+        return transactionTemplate.execute(status -> {
+            return entityManager.find(Task.class, taskId).getVersion();
+        });
+    }
+
+    private UsernamePasswordAuthenticationToken authentication() {
+        return new UsernamePasswordAuthenticationToken(new UserPrincipal(employee), null, Collections.emptyList());
+    }
+}
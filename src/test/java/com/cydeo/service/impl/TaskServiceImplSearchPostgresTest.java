@@ -0,0 +1,114 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.PostgresTestDatabase;
+import com.cydeo.dto.TaskSummaryDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The full-text search reads the search_vector column of V9, which only exists in postgres,
+ * the schema is created by the flyway migrations (see PostgresTestDatabase).
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.cydeo.PostgresTestDatabase#isAvailable")
+@Import({TaskServiceImpl.class, SecurityServiceImpl.class, ProjectTaskCounterServiceImpl.class, TaskMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class TaskServiceImplSearchPostgresTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Task resetLogin;
+    private Task loginFails;
+    private Task loginAudit;
+
+    @BeforeEach
+    void setUp() {
+        User manager = persist(entityManager, user("manager@cydeo.com", persist(entityManager, new Role("Manager"))));
+        User employee = persist(entityManager, user("employee@cydeo.com", persist(entityManager, new Role("Employee"))));
+        Project payroll = persist(entityManager, project("PR001", manager));
+        Project audit = persist(entityManager, project("PR002", manager));
+
+        resetLogin = persist(entityManager, searchedTask(payroll, employee, Status.OPEN, "Reset the login page", "the reset link expires"));
+        loginFails = persist(entityManager, searchedTask(payroll, employee, Status.IN_PROGRESS, "Password rules", "the login fails with a long password"));
+        loginAudit = persist(entityManager, searchedTask(audit, employee, Status.OPEN, "Audit the login", "every attempt is recorded"));
+        Task deleted = searchedTask(payroll, employee, Status.OPEN, "Login of the deleted users", "detail");
+        deleted.setIsDeleted(true);
+        persist(entityManager, deleted);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void search_ranksAMatchOfTheSubjectAboveAMatchOfTheDetail() {
+        List<Long> ids = search("login", null, null);
+
+        //the deleted task is not found, the subject matches come first
+        assertEquals(3, ids.size());
+        assertEquals(new HashSet<>(Arrays.asList(resetLogin.getId(), loginAudit.getId())), new HashSet<>(ids.subList(0, 2)));
+        assertEquals(loginFails.getId(), ids.get(2));
+        //a search box query, the words after a minus are excluded
+        assertEquals(new HashSet<>(Arrays.asList(resetLogin.getId(), loginAudit.getId())), new HashSet<>(search("login -password", null, null)));
+        assertEquals(Collections.emptyList(), search("payroll", null, null));
+    }
+
+    @Test
+    void search_filtersByProjectAndStatus() {
+        assertEquals(new HashSet<>(Arrays.asList(resetLogin.getId(), loginFails.getId())), new HashSet<>(search("login", "PR001", null)));
+        assertEquals(Collections.singletonList(loginFails.getId()), search("login", null, Status.IN_PROGRESS));
+        assertEquals(Collections.singletonList(loginAudit.getId()), search("login", "PR002", Status.OPEN));
+    }
+
+    private List<Long> search(String query, String projectCode, Status status) {
+        return taskService.search(query, projectCode, status, PageRequest.of(0, 10)).getContent().stream()
+                .map(TaskSummaryDTO::getId).collect(Collectors.toList());
+    }
+
+    private Task searchedTask(Project project, User employee, Status status, String subject, String detail) {
+        Task task = task(project, employee, status);
+        task.setTaskSubject(subject);
+        task.setTaskDetail(detail);
+        return task;
+    }
+}
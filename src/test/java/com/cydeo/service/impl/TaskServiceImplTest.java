@@ -0,0 +1,271 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.TaskSummaryDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskCounter;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.project;
+import static com.cydeo.TestFixtures.task;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TaskServiceImpl.class, SecurityServiceImpl.class, ProjectTaskCounterServiceImpl.class, TaskMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class, RoleMapperImpl.class})
+class TaskServiceImplTest {
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private ProjectMapper projectMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User manager;
+    private User employee;
+    private final List<Project> projects = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        Role managerRole = persist(entityManager, new Role("Manager"));
+        Role employeeRole = persist(entityManager, new Role("Employee"));
+        manager = persist(entityManager, user("manager@cydeo.com", managerRole));
+        employee = persist(entityManager, user("employee@cydeo.com", employeeRole));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void assignTaskCounts_countsEveryStatusOfEveryProject() {
+        addProject("PR001", 2, 1);
+        addProject("PR002", 0, 3);
+        addProject("PR003", 0, 0);
+
+        List<ProjectDTO> projectDTOs = convertProjects();
+        taskService.assignTaskCounts(projectDTOs);
+
+        assertEquals(2, projectDTOs.get(0).getUnfinishedTaskCounts());
+        assertEquals(1, projectDTOs.get(0).getCompleteTaskCounts());
+        assertEquals(0, projectDTOs.get(1).getUnfinishedTaskCounts());
+        assertEquals(3, projectDTOs.get(1).getCompleteTaskCounts());
+        assertEquals(0, projectDTOs.get(2).getUnfinishedTaskCounts());
+        assertEquals(0, projectDTOs.get(2).getCompleteTaskCounts());
+    }
+
+    @Test
+    void assignTaskCounts_runsOneQueryRegardlessOfProjectCount() {
+        addProject("PR001", 1, 1);
+        assertEquals(1, countStatements(convertProjects()));
+
+        for (int i = 2; i <= 30; i++) {
+            addProject("PR" + i, 2, 2);
+        }
+        assertEquals(1, countStatements(convertProjects()));
+    }
+
+    @Test
+    void findAllTasks_fetchesAssociationsWithTheTasks() {
+        addProject("PR001", 2, 1);
+        assertEquals(1, countFindAllTasksStatements());
+
+        for (int i = 2; i <= 10; i++) {
+            addProject("PR" + i, 3, 3);
+        }
+        assertEquals(1, countFindAllTasksStatements());
+    }
+
+    @Test
+    void findAllTasks_selectsOnePageOfSummariesAndTheCount() {
+        for (int i = 1; i <= 5; i++) {
+            addProject("PR" + i, 3, 2);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Page<TaskSummaryDTO> page = taskService.findAllTasks(PageRequest.of(1, 10, Sort.by("id")));
+
+        assertEquals(25, page.getTotalElements());
+        assertEquals(10, page.getContent().size());
+        assertEquals("PR3 name", page.getContent().get(0).getProjectName());
+        assertEquals("first", page.getContent().get(0).getEmployeeFirstName());
+        //the page and the count, no entity is loaded
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void listAllTasksByStatus_usesTheIdOfTheLoggedInEmployee() {
+        addProject("PR001", 2, 3);
+        login(employee);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<TaskDTO> tasks = taskService.listAllTasksByStatus(Status.COMPLETE);
+
+        assertEquals(3, tasks.size());
+        //only the tasks are selected, the user is not looked up by the username again
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listAllTasksByStatusIsNot_readsOneSliceWithoutACount() {
+        addProject("PR001", 5, 2);
+        login(employee);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Slice<TaskSummaryDTO> first = taskService.listAllTasksByStatusIsNot(Status.COMPLETE, 0, 3);
+        Slice<TaskSummaryDTO> last = taskService.listAllTasksByStatusIsNot(Status.COMPLETE, 1, 3);
+
+        assertEquals(3, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(2, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+        assertTrue(first.getContent().get(2).getId() < last.getContent().get(0).getId());
+        //one select per slice, no count
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void completeByProject_updatesEveryTaskAndTheCounterWithOneStatementEach() {
+        addProject("PR001", 40, 2);
+        addProject("PR002", 3, 0);
+        login(manager);
+        entityManager.flush();
+        statistics.clear();
+
+        taskService.completeByProject(projectMapper.convertToDTO(projects.get(0)));
+
+        //the locked statuses of the tasks for the audit log, the bulk update of the tasks and of the counter
+        assertEquals(3, statistics.getPrepareStatementCount());
+        List<ProjectDTO> projectDTOs = convertProjects();
+        taskService.assignTaskCounts(projectDTOs);
+        assertEquals(42, projectDTOs.get(0).getCompleteTaskCounts());
+        assertEquals(0, projectDTOs.get(0).getUnfinishedTaskCounts());
+        assertEquals(3, projectDTOs.get(1).getUnfinishedTaskCounts());
+        //the audit columns are set by the query, the entity listener is not called by a bulk update
+        Task task = entityManager.getEntityManager()
+                .createQuery("SELECT t FROM Task t WHERE t.project.id = ?1", Task.class)
+                .setParameter(1, projects.get(0).getId()).setMaxResults(1).getSingleResult();
+        assertEquals(manager.getId(), task.getLastUpdateUserId());
+    }
+
+    @Test
+    void deleteByProject_softDeletesEveryTaskAndResetsTheCounterWithOneStatementEach() {
+        addProject("PR001", 25, 5);
+        addProject("PR002", 2, 1);
+        login(manager);
+        entityManager.flush();
+        statistics.clear();
+
+        taskService.deleteByProject(projectMapper.convertToDTO(projects.get(0)));
+
+        //the locked statuses of the tasks for the audit log, the bulk update of the tasks and of the counter
+        assertEquals(3, statistics.getPrepareStatementCount());
+        List<ProjectDTO> projectDTOs = convertProjects();
+        taskService.assignTaskCounts(projectDTOs);
+        assertEquals(0, projectDTOs.get(0).getCompleteTaskCounts() + projectDTOs.get(0).getUnfinishedTaskCounts());
+        assertEquals(3, projectDTOs.get(1).getCompleteTaskCounts() + projectDTOs.get(1).getUnfinishedTaskCounts());
+    }
+
+    @Test
+    void persist_insertsTheTasksInBatches() {
+        addProject("PR001", 0, 0);
+        entityManager.flush();
+        statistics.clear();
+
+        addProject("PR002", 150, 50);
+        entityManager.flush();
+
+        //a few sequence calls and a few batches, instead of one insert statement per task
+        assertTrue(statistics.getPrepareStatementCount() < 10, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private void login(User user) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(user), null, Collections.emptyList()));
+    }
+
+    private long countFindAllTasksStatements() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        taskService.findAllTasks();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStatements(List<ProjectDTO> projectDTOs) {
+        entityManager.flush();
+        statistics.clear();
+        taskService.assignTaskCounts(projectDTOs);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<ProjectDTO> convertProjects() {
+        return projects.stream().map(projectMapper::convertToDTO).collect(Collectors.toList());
+    }
+
+    private void addProject(String code, int unfinished, int completed) {
+        Project project = persist(entityManager, project(code, manager));
+        projects.add(project);
+
+        for (int i = 0; i < unfinished; i++) {
+            persist(entityManager, task(project, employee, i % 2 == 0 ? Status.OPEN : Status.IN_PROGRESS));
+        }
+        for (int i = 0; i < completed; i++) {
+            persist(entityManager, task(project, employee, Status.COMPLETE));
+        }
+        //the counter the task writes would have kept
+        entityManager.persist(new ProjectTaskCounter(project.getId(), completed, unfinished));
+    }
+}
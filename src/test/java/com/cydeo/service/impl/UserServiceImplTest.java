@@ -0,0 +1,130 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.config.CacheConfig;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserOptionDTO;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.entity.common.UserPrincipal;
+import com.cydeo.enums.Gender;
+import com.cydeo.mapper.ProjectMapperImpl;
+import com.cydeo.mapper.RoleMapperImpl;
+import com.cydeo.mapper.TaskMapperImpl;
+import com.cydeo.mapper.UserMapperImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.cydeo.TestFixtures.persist;
+import static com.cydeo.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CacheConfig.class, UserServiceImpl.class, ProjectServiceImpl.class, TaskServiceImpl.class, ProjectTaskCounterServiceImpl.class,
+        SecurityServiceImpl.class, BCryptPasswordEncoder.class, TaskMapperImpl.class, ProjectMapperImpl.class,
+        UserMapperImpl.class, RoleMapperImpl.class})
+class UserServiceImplTest {
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Role employeeRole;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Role managerRole = persist(entityManager, new Role("Manager"));
+        employeeRole = persist(entityManager, new Role("Employee"));
+        User manager = persist(entityManager, user("manager@cydeo.com", managerRole));
+        persist(entityManager, user("employee@cydeo.com", employeeRole));
+        entityManager.flush();
+        entityManager.clear();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(manager), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void save_evictsTheCachedPrincipalOfTheUser() {
+        cacheManager.getCache(CacheConfig.PRINCIPALS).put("mary@cydeo.com", "stale principal");
+        cacheManager.getCache(CacheConfig.PRINCIPALS).put("employee@cydeo.com", "principal");
+
+        userService.save(userDTO("mary@cydeo.com"));
+
+        assertNull(cacheManager.getCache(CacheConfig.PRINCIPALS).get("mary@cydeo.com"));
+        assertNotNull(cacheManager.getCache(CacheConfig.PRINCIPALS).get("employee@cydeo.com"));
+    }
+
+    @Test
+    void lookup_returnsTheFirstUsersOfTheRoleMatchingTheText() {
+        User mary = user("mary@cydeo.com", employeeRole);
+        mary.setFirstName("Mary");
+        mary.setLastName("Smith");
+        persist(entityManager, mary);
+        User john = user("john_smith@cydeo.com", employeeRole);
+        john.setFirstName("John");
+        persist(entityManager, john);
+        entityManager.flush();
+
+        //the name or the username, case-insensitive, ordered by name
+        assertEquals(Arrays.asList("john_smith@cydeo.com", "mary@cydeo.com"), userNames(userService.lookup("Employee", "SMITH", 10)));
+        assertEquals(Collections.singletonList("mary@cydeo.com"), userNames(userService.lookup("employee", "y s", 10)));
+        //a text shorter than 3 characters is not looked up
+        assertEquals(0, userService.lookup("employee", "", 10).size());
+        assertEquals(0, userService.lookup("employee", " sm ", 10).size());
+        assertEquals(1, userService.lookup("employee", "smi", 1).size());
+        //the manager is not an employee, the _ is not a wildcard
+        assertEquals(0, userService.lookup("employee", "manager", 10).size());
+        assertEquals(Collections.singletonList("john_smith@cydeo.com"), userNames(userService.lookup("employee", "n_s", 10)));
+        assertEquals(0, userService.lookup("employee", "y_s", 10).size());
+    }
+
+    private List<String> userNames(List<UserOptionDTO> users) {
+        return users.stream().map(UserOptionDTO::getUserName).collect(Collectors.toList());
+    }
+
+    private UserDTO userDTO(String userName) {
+        UserDTO user = new UserDTO();
+        user.setFirstName("Mary");
+        user.setLastName("Smith");
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setConfirmPassWord("Abc1");
+        user.setPhone("1234567890");
+        user.setGender(Gender.FEMALE);
+        user.setRole(new RoleDTO(employeeRole.getId(), employeeRole.getDescription()));
+        return user;
+    }
+}